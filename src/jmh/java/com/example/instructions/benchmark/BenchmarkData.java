@@ -0,0 +1,74 @@
+package com.example.instructions.benchmark;
+
+import com.example.instructions.model.CanonicalTrade;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeded trade datasets shared by the benchmarks, so every run and every machine measures the same input.
+ * The mix follows the sample files: mostly canonical values with some lower-case security IDs and
+ * alternative trade type spellings.
+ */
+final class BenchmarkData {
+
+    static final long SEED = 20250804L;
+    static final String CSV_HEADER = "account_number,security_id,trade_type,quantity,price,amount,timestamp\n";
+
+    private static final String[] TRADE_TYPES = {"B", "S", "BUY", "SELL", "b", "Sell"};
+    private static final int SECURITY_UNIVERSE = 2_000;
+    private static final LocalDateTime START = LocalDateTime.of(2025, 8, 4, 9, 0);
+
+    private BenchmarkData() {
+    }
+
+    static List<CanonicalTrade> trades(int count) {
+        Random random = new Random(SEED);
+        List<CanonicalTrade> trades = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String securityId = String.format("SYM%04d", random.nextInt(SECURITY_UNIVERSE));
+            if (random.nextInt(10) == 0) {
+                securityId = securityId.toLowerCase();
+            }
+            long quantity = 1 + random.nextInt(5_000);
+            BigDecimal price = BigDecimal.valueOf(100 + random.nextInt(500_000), 2);
+            trades.add(new CanonicalTrade(
+                    Long.toString(1_000_000_000L + random.nextInt(900_000_000)),
+                    securityId,
+                    TRADE_TYPES[random.nextInt(TRADE_TYPES.length)],
+                    quantity,
+                    price,
+                    price.multiply(BigDecimal.valueOf(quantity)),
+                    START.plusSeconds(random.nextInt(8 * 3600))));
+        }
+        return trades;
+    }
+
+    static byte[] csv(List<CanonicalTrade> trades) {
+        StringBuilder sb = new StringBuilder(trades.size() * 72).append(CSV_HEADER);
+        for (CanonicalTrade trade : trades) {
+            sb.append(trade.getAccountNumber()).append(',')
+                    .append(trade.getSecurityId()).append(',')
+                    .append(trade.getTradeType()).append(',')
+                    .append(trade.getQuantity()).append(',')
+                    .append(trade.getPrice().toPlainString()).append(',')
+                    .append(trade.getAmount().toPlainString()).append(',')
+                    .append(trade.getTimestamp()).append('\n');
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static byte[] jsonArray(ObjectMapper objectMapper, List<CanonicalTrade> trades) {
+        try {
+            return objectMapper.writeValueAsBytes(trades);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not encode benchmark dataset.", e);
+        }
+    }
+}
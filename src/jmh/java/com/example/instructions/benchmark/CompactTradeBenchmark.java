@@ -0,0 +1,87 @@
+package com.example.instructions.benchmark;
+
+import com.example.instructions.model.CanonicalTrade;
+import com.example.instructions.model.CompactTrade;
+import com.example.instructions.service.TradeAuditLog;
+import com.example.instructions.util.SecurityDictionary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jol.info.GraphLayout;
+import org.openjdk.jol.vm.VM;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion between {@link CanonicalTrade} and the {@link CompactTrade} kept by the audit log and the trade store;
+ * one op converts one trade. Setup retains {@value #RETAINED} trades in each form and prints their heap footprint
+ * as measured by JOL, together with the cost of one {@link TradeAuditLog} entry.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+// magicFieldOffset lets JOL walk the audit log's lambdas, whose hidden classes Unsafe will not report offsets for.
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-Djol.magicFieldOffset=true"})
+public class CompactTradeBenchmark {
+
+    private static final int RETAINED = 1_000_000;
+
+    private final SecurityDictionary dictionary = new SecurityDictionary();
+    private CanonicalTrade[] trades;
+    private CompactTrade[] compacts;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        trades = BenchmarkData.trades(RETAINED).toArray(CanonicalTrade[]::new);
+        compacts = new CompactTrade[trades.length];
+        for (int i = 0; i < trades.length; i++) {
+            compacts[i] = CompactTrade.from(trades[i], dictionary);
+        }
+
+        TradeAuditLog auditLog = new TradeAuditLog(Duration.ofHours(24), RETAINED, 65_536, Duration.ofHours(1), 1,
+                new SecurityDictionary());
+        long emptyLog = GraphLayout.parseInstance(auditLog).totalSize();
+        for (CanonicalTrade trade : trades) {
+            auditLog.record(trade);
+        }
+
+        System.out.printf("%nHeap per trade over %,d trades: CanonicalTrade %.1f bytes, CompactTrade %.1f bytes"
+                        + " (+ %,d bytes of SecurityDictionary in all), audit log entry %.1f bytes%n",
+                RETAINED, perTrade(trades), perTrade(compacts), GraphLayout.parseInstance(dictionary).totalSize(),
+                (double) (GraphLayout.parseInstance(auditLog).totalSize() - emptyLog) / RETAINED);
+    }
+
+    /** Everything reachable from the elements, without the array that holds them. */
+    private static double perTrade(Object[] retained) {
+        return (double) (GraphLayout.parseInstance(List.of(retained).toArray()).totalSize()
+                - VM.current().sizeOf(retained)) / retained.length;
+    }
+
+    @Benchmark
+    public CompactTrade compact() {
+        return CompactTrade.from(trades[nextIndex()], dictionary);
+    }
+
+    @Benchmark
+    public CanonicalTrade expand() {
+        return compacts[nextIndex()].toCanonicalTrade(dictionary);
+    }
+
+    private int nextIndex() {
+        int i = next;
+        next = (i + 1) % trades.length;
+        return i;
+    }
+}
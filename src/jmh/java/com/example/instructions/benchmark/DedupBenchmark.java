@@ -0,0 +1,89 @@
+package com.example.instructions.benchmark;
+
+import com.example.instructions.model.CanonicalTrade;
+import com.example.instructions.service.DedupShards;
+import com.example.instructions.service.TradeDeduplicator;
+import org.apache.kafka.common.TopicPartition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One {@link TradeDeduplicator} lookup including the fingerprint, on a full table of the default capacity.
+ * {@code unseen} is the common case of a new trade (it also evicts the oldest entry); {@code repeated} is a redelivery.
+ * {@code partitionShard} is the {@link DedupShards} lookup a Kafka record makes first, cycling over 12 partitions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DedupBenchmark {
+
+    private static final int CAPACITY = 1_000_000;
+
+    private static final String TOPIC = "instructions.inbound";
+    private static final int PARTITIONS = 12;
+
+    private TradeDeduplicator deduplicator;
+    private DedupShards dedupShards;
+    private int partition;
+    private CanonicalTrade[] trades;
+    private int next;
+    private long quantity;
+
+    @Setup
+    public void setUp() {
+        deduplicator = new TradeDeduplicator(true, Duration.ofHours(1), CAPACITY);
+        trades = BenchmarkData.trades(4_096).toArray(new CanonicalTrade[0]);
+        for (long i = 0; i < CAPACITY; i++) {
+            deduplicator.firstSeen(i * 0x9E3779B97F4A7C15L);
+        }
+        for (CanonicalTrade trade : trades) {
+            deduplicator.firstSeen(TradeDeduplicator.fingerprint(trade));
+        }
+        quantity = Long.MAX_VALUE / 2;
+
+        dedupShards = new DedupShards(true, Duration.ofMinutes(10), 1_024);
+        List<TopicPartition> assigned = new ArrayList<>();
+        for (int p = 0; p < PARTITIONS; p++) {
+            assigned.add(new TopicPartition(TOPIC, p));
+        }
+        dedupShards.onPartitionsAssigned(null, assigned);
+    }
+
+    @Benchmark
+    public TradeDeduplicator partitionShard() {
+        int p = partition;
+        partition = p + 1 == PARTITIONS ? 0 : p + 1;
+        return dedupShards.forPartition(TOPIC, p);
+    }
+
+    @Benchmark
+    public boolean unseen() {
+        CanonicalTrade trade = trades[next];
+        next = (next + 1) & (trades.length - 1);
+        trade.setQuantity(quantity++);
+        return deduplicator.firstSeen(TradeDeduplicator.fingerprint(trade));
+    }
+
+    @Benchmark
+    public boolean repeated() {
+        CanonicalTrade trade = trades[next];
+        next = (next + 1) & (trades.length - 1);
+        return deduplicator.firstSeen(TradeDeduplicator.fingerprint(trade));
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.instructions.benchmark;
+
+import com.example.instructions.config.PayloadFormat;
+import com.example.instructions.model.CanonicalTrade;
+import com.example.instructions.model.PlatformTrade;
+import com.example.instructions.util.TradeTransformer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kafka payload encodings; one op encodes one outbound wrapper or decodes one inbound trade. The average payload
+ * size of each format is printed once at setup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EncodingBenchmark {
+
+    @Param({"JSON", "SMILE", "CBOR"})
+    public PayloadFormat format;
+
+    private ObjectWriter wrapperWriter;
+    private ObjectReader tradeReader;
+    private PlatformTrade.PlatformTradeWrapper[] wrappers;
+    private byte[][] trades;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper mapper = format.newMapper();
+        wrapperWriter = format.newPayloadMapper().writerFor(PlatformTrade.PlatformTradeWrapper.class);
+        tradeReader = mapper.readerFor(CanonicalTrade.class);
+
+        List<CanonicalTrade> dataset = BenchmarkData.trades(1_024);
+        TradeTransformer transformer = new TradeTransformer();
+        wrappers = dataset.stream()
+                .map(trade -> new PlatformTrade.PlatformTradeWrapper("ACCT123", transformer.transformToPlatformTrade(trade)))
+                .toArray(PlatformTrade.PlatformTradeWrapper[]::new);
+        trades = new byte[dataset.size()][];
+        long wrapperBytes = 0;
+        long tradeBytes = 0;
+        for (int i = 0; i < trades.length; i++) {
+            trades[i] = mapper.writeValueAsBytes(dataset.get(i));
+            tradeBytes += trades[i].length;
+            wrapperBytes += wrapperWriter.writeValueAsBytes(wrappers[i]).length;
+        }
+        System.out.printf("%n%s bytes per message: outbound wrapper %.1f, inbound trade %.1f%n", format,
+                (double) wrapperBytes / wrappers.length, (double) tradeBytes / trades.length);
+    }
+
+    /** What {@code TradeService} sends with {@code trade.publish.encoding} set to this format. */
+    @Benchmark
+    public byte[] encodeWrapper() throws IOException {
+        return wrapperWriter.writeValueAsBytes(wrappers[nextIndex()]);
+    }
+
+    /** What {@code TradeDeserializer} does for an inbound record whose header names this format. */
+    @Benchmark
+    public CanonicalTrade decodeTrade() throws IOException {
+        return tradeReader.readValue(trades[nextIndex()]);
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = (next + 1) & (wrappers.length - 1);
+        return index;
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.instructions.benchmark;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import com.example.instructions.config.JacksonConfig;
+import com.example.instructions.model.CanonicalTrade;
+import com.example.instructions.service.DedupShards;
+import com.example.instructions.service.KafkaPublisher;
+import com.example.instructions.service.PositionAggregator;
+import com.example.instructions.service.RejectsReports;
+import com.example.instructions.service.TradeAuditLog;
+import com.example.instructions.service.TradeDeduplicator;
+import com.example.instructions.service.TradeLogSampler;
+import com.example.instructions.service.TradeMetrics;
+import com.example.instructions.service.TradePipeline;
+import com.example.instructions.service.TradeService;
+import com.example.instructions.util.PlatformRoutes;
+import com.example.instructions.util.SecurityDictionary;
+import com.example.instructions.util.TradeTransformer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TradeService#processTrade} as in {@link ProcessTradeBenchmark} (no-op metrics) with the per-trade INFO lines
+ * written to {@code target/jmh-logging/trades.log} in the production file pattern. One op is one trade.
+ * <ul>
+ *   <li>{@code off}: application logging at WARN, the baseline</li>
+ *   <li>{@code sync}: every line written on the calling thread, as in the default profile</li>
+ *   <li>{@code async}: every line queued to an {@link AsyncAppender}, as in the {@code prod} and
+ *       {@code async-logging} profiles; INFO lines beyond what the writer keeps up with are dropped</li>
+ *   <li>{@code async-sampled}: the same with {@code trade.logging.sample-rate=100}, the {@code prod} setting</li>
+ * </ul>
+ * Use {@code -t} to see contention between producer threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoggingBenchmark {
+
+    @Param({"off", "sync", "async", "async-sampled"})
+    public String logging;
+
+    private final Logger appLogger = (Logger) LoggerFactory.getLogger("com.example.instructions");
+    private Appender<ILoggingEvent> appender;
+    private TradeService tradeService;
+    private TradePipeline tradePipeline;
+    private CanonicalTrade[] trades;
+
+    @Setup
+    public void setUp() {
+        configureLogging();
+
+        TradeMetrics tradeMetrics = new TradeMetrics(new CompositeMeterRegistry());
+        TradeLogSampler logSampler = new TradeLogSampler(logging.equals("async-sampled") ? 100 : 1,
+                Duration.ofMinutes(1));
+        KafkaPublisher publisher = new KafkaPublisher(new ProcessTradeBenchmark.AcknowledgingTemplate(), tradeMetrics,
+                logSampler, 20_000);
+        JacksonConfig jacksonConfig = new JacksonConfig();
+        tradePipeline = new TradePipeline(1, 16);
+        tradeService = new TradeService(new TradeTransformer(), publisher, jacksonConfig.objectMapper(),
+                jacksonConfig.csvMapper(), tradePipeline,
+                new TradeAuditLog(Duration.ofHours(1), 1_000_000, 65_536, Duration.ofMinutes(5), 0, new SecurityDictionary()),
+                tradeMetrics, new TradeDeduplicator(false, Duration.ofMinutes(10), 1),
+                new DedupShards(false, Duration.ofMinutes(10), 1), new PositionAggregator(), logSampler,
+                PlatformRoutes.single("ACCT123", "instructions.outbound"),
+                new RejectsReports(Path.of("target/jmh-rejects"), Duration.ofHours(1)));
+        trades = BenchmarkData.trades(4_096).toArray(new CanonicalTrade[0]);
+    }
+
+    @TearDown
+    public void tearDown() {
+        tradePipeline.shutdown();
+        if (appender != null) {
+            appLogger.detachAppender(appender);
+            appender.stop();
+        }
+    }
+
+    @Benchmark
+    public void processTrade(ProcessTradeBenchmark.Cursor cursor) {
+        tradeService.processTrade(trades[cursor.next()], System.currentTimeMillis());
+    }
+
+    private void configureLogging() {
+        appLogger.setLevel(logging.equals("off") ? Level.WARN : Level.INFO);
+        appLogger.setAdditive(false);
+        if (logging.equals("off")) {
+            return;
+        }
+        LoggerContext context = appLogger.getLoggerContext();
+
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p --- [%t] %-40.40logger{39} : %m%n");
+        encoder.start();
+
+        FileAppender<ILoggingEvent> file = new FileAppender<>();
+        file.setContext(context);
+        file.setFile("target/jmh-logging/trades.log");
+        file.setAppend(false);
+        file.setEncoder(encoder);
+        file.start();
+        appender = file;
+
+        if (logging.startsWith("async")) {
+            AsyncAppender async = new AsyncAppender();
+            async.setContext(context);
+            async.setQueueSize(10_240);
+            async.addAppender(file);
+            async.start();
+            appender = async;
+        }
+        appLogger.addAppender(appender);
+    }
+}
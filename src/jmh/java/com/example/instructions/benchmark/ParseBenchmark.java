@@ -0,0 +1,108 @@
+package com.example.instructions.benchmark;
+
+import com.example.instructions.config.JacksonConfig;
+import com.example.instructions.model.CanonicalTrade;
+import com.example.instructions.util.CsvTradeReader;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Upload parsing with the application's mappers; one op parses a whole file of {@code trades} records.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseBenchmark {
+
+    private static final TypeReference<List<CanonicalTrade>> TRADE_LIST = new TypeReference<>() {
+    };
+
+    @Param({"10000"})
+    public int trades;
+
+    private ObjectMapper objectMapper;
+    private CsvMapper csvMapper;
+    private ObjectReader csvReader;
+    private ObjectReader jsonReader;
+    private byte[] csv;
+    private byte[] json;
+
+    @Setup
+    public void setUp() {
+        JacksonConfig jacksonConfig = new JacksonConfig();
+        objectMapper = jacksonConfig.objectMapper();
+        csvMapper = jacksonConfig.csvMapper();
+        csvReader = csvMapper.readerFor(CanonicalTrade.class).with(CsvSchema.emptySchema().withHeader());
+        jsonReader = objectMapper.readerFor(CanonicalTrade.class);
+
+        List<CanonicalTrade> dataset = BenchmarkData.trades(trades);
+        csv = BenchmarkData.csv(dataset);
+        json = BenchmarkData.jsonArray(objectMapper, dataset);
+    }
+
+    /** Header-schema binding through the {@code CsvMapper}, as {@code TradeService.processCsv} did before. */
+    @Benchmark
+    public void csvMappingIterator(Blackhole bh) throws IOException {
+        try (MappingIterator<CanonicalTrade> it = csvReader.readValues(csv)) {
+            while (it.hasNext()) {
+                bh.consume(it.next());
+            }
+        }
+    }
+
+    /** Same reader as {@code TradeService.processCsv}. */
+    @Benchmark
+    public void csvTradeReader(Blackhole bh) throws IOException {
+        try (CsvTradeReader reader = CsvTradeReader.open(new ByteArrayInputStream(csv), csvMapper)) {
+            CanonicalTrade trade;
+            while ((trade = reader.next()) != null) {
+                bh.consume(trade);
+            }
+        }
+    }
+
+    /** Binding the whole array to a list, as uploads were parsed before streaming. */
+    @Benchmark
+    public List<CanonicalTrade> jsonList() throws IOException {
+        return objectMapper.readValue(json, TRADE_LIST);
+    }
+
+    /** Element-by-element binding, as in {@code TradeService.processJson}. */
+    @Benchmark
+    public void jsonStreaming(Blackhole bh) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            JsonToken token = parser.nextToken();
+            token = token == JsonToken.START_ARRAY ? parser.nextToken() : token;
+            while (token != null && token != JsonToken.END_ARRAY) {
+                bh.consume(jsonReader.<CanonicalTrade>readValue(parser));
+                token = parser.nextToken();
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.instructions.benchmark;
+
+import ch.qos.logback.classic.Level;
+import com.example.instructions.config.JacksonConfig;
+import com.example.instructions.model.CanonicalTrade;
+import com.example.instructions.service.DedupShards;
+import com.example.instructions.service.KafkaPublisher;
+import com.example.instructions.service.PositionAggregator;
+import com.example.instructions.service.RejectsReports;
+import com.example.instructions.service.TradeAuditLog;
+import com.example.instructions.service.TradeDeduplicator;
+import com.example.instructions.service.TradeLogSampler;
+import com.example.instructions.service.TradeMetrics;
+import com.example.instructions.service.TradePipeline;
+import com.example.instructions.service.TradeService;
+import com.example.instructions.util.PlatformRoutes;
+import com.example.instructions.util.PlatformRules;
+import com.example.instructions.util.SecurityDictionary;
+import com.example.instructions.util.TradeTransformer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TradeService#processTrade} end to end (audit, transform, serialize, publish) through the real
+ * {@link KafkaPublisher} over a template stub that acknowledges immediately, so the broker is not part of the
+ * measurement. Application logging is set to WARN. One op is one trade.
+ * <p>
+ * {@code metrics=noop} binds {@link TradeMetrics} to a registry without backends and {@code metrics=prometheus}
+ * to a Prometheus registry with percentile histograms; the difference is the instrumentation overhead.
+ * {@code platforms} is the number of platforms each trade is fanned out to: the default one, then platforms with
+ * their own account masking and type labels.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProcessTradeBenchmark {
+
+    @Param({"noop", "prometheus"})
+    public String metrics;
+
+    @Param({"1", "3"})
+    public int platforms;
+
+    private TradeService tradeService;
+    private TradePipeline tradePipeline;
+    private CanonicalTrade[] trades;
+
+    @Setup
+    public void setUp() {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger("com.example.instructions")).setLevel(Level.WARN);
+
+        MeterRegistry registry = metrics.equals("prometheus")
+                ? new PrometheusMeterRegistry(PrometheusConfig.DEFAULT) : new CompositeMeterRegistry();
+        TradeMetrics tradeMetrics = new TradeMetrics(registry);
+        TradeLogSampler logSampler = new TradeLogSampler(1, Duration.ofMinutes(1));
+        KafkaPublisher publisher = new KafkaPublisher(new AcknowledgingTemplate(), tradeMetrics, logSampler, 20_000);
+        JacksonConfig jacksonConfig = new JacksonConfig();
+        tradePipeline = new TradePipeline(1, 16);
+        tradeService = new TradeService(new TradeTransformer(), publisher, jacksonConfig.objectMapper(),
+                jacksonConfig.csvMapper(), tradePipeline,
+                new TradeAuditLog(Duration.ofHours(1), 1_000_000, 65_536, Duration.ofMinutes(5), 0, new SecurityDictionary()),
+                tradeMetrics, new TradeDeduplicator(false, Duration.ofMinutes(10), 1),
+                new DedupShards(false, Duration.ofMinutes(10), 1), new PositionAggregator(), logSampler,
+                routes(), new RejectsReports(Path.of("target/jmh-rejects"), Duration.ofHours(1)));
+        trades = BenchmarkData.trades(4_096).toArray(new CanonicalTrade[0]);
+    }
+
+    private PlatformRoutes routes() {
+        List<PlatformRules> rules = new ArrayList<>();
+        rules.add(PlatformRules.defaults("ACCT123", "instructions.outbound"));
+        for (int i = 1; i < platforms; i++) {
+            rules.add(new PlatformRules("PLATFORM" + i, "instructions.outbound." + i,
+                    i % 2 == 1 ? PlatformRules.AccountMask.FULL : PlatformRules.AccountMask.NONE,
+                    Map.of("B", "BUY", "S", "SELL", "U", "UNKNOWN")));
+        }
+        return new PlatformRoutes(rules);
+    }
+
+    @TearDown
+    public void tearDown() {
+        tradePipeline.shutdown();
+    }
+
+    @Benchmark
+    public void processTrade(Cursor cursor) {
+        tradeService.processTrade(trades[cursor.next()], System.currentTimeMillis());
+    }
+
+    /** Completes every send at once with a fixed result; no producer is ever created. */
+    static final class AcknowledgingTemplate extends KafkaTemplate<String, byte[]> {
+
+        private final CompletableFuture<SendResult<String, byte[]>> acknowledged = CompletableFuture.completedFuture(
+                new SendResult<>(new ProducerRecord<>("instructions.outbound", new byte[0]),
+                        new RecordMetadata(new TopicPartition("instructions.outbound", 0), 0, 0, 0, 0, 0)));
+
+        AcknowledgingTemplate() {
+            super(new DefaultKafkaProducerFactory<>(Map.of()));
+        }
+
+        @Override
+        public CompletableFuture<SendResult<String, byte[]>> send(ProducerRecord<String, byte[]> record) {
+            return acknowledged;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int position;
+
+        int next() {
+            position = (position + 1) & 4_095;
+            return position;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.instructions.benchmark;
+
+import com.example.instructions.config.JacksonConfig;
+import com.example.instructions.config.PayloadFormat;
+import com.example.instructions.model.PlatformTrade;
+import com.example.instructions.util.TradeTransformer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outbound wrapper serialization; one op is one trade.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializeBenchmark {
+
+    private ObjectMapper objectMapper;
+    private ObjectWriter wrapperWriter;
+    private PlatformTrade.PlatformTradeWrapper[] wrappers;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new JacksonConfig().objectMapper();
+        wrapperWriter = PayloadFormat.JSON.newPayloadMapper().writerFor(PlatformTrade.PlatformTradeWrapper.class);
+        TradeTransformer transformer = new TradeTransformer();
+        wrappers = BenchmarkData.trades(1_024).stream()
+                .map(trade -> new PlatformTrade.PlatformTradeWrapper("ACCT123", transformer.transformToPlatformTrade(trade)))
+                .toArray(PlatformTrade.PlatformTradeWrapper[]::new);
+    }
+
+    /** Current path: a single encode with a prepared writer, the bytes are logged and sent as-is. */
+    @Benchmark
+    public byte[] writeBytesOnce() throws JsonProcessingException {
+        return wrapperWriter.writeValueAsBytes(nextWrapper());
+    }
+
+    /** Previous path: a String for the log line, then a second encode by the producer's JsonSerializer. */
+    @Benchmark
+    public void writeStringThenBytes(Blackhole bh) throws JsonProcessingException {
+        PlatformTrade.PlatformTradeWrapper wrapper = nextWrapper();
+        bh.consume(objectMapper.writeValueAsString(wrapper));
+        bh.consume(objectMapper.writeValueAsBytes(wrapper));
+    }
+
+    private PlatformTrade.PlatformTradeWrapper nextWrapper() {
+        PlatformTrade.PlatformTradeWrapper wrapper = wrappers[next];
+        next = (next + 1) & (wrappers.length - 1);
+        return wrapper;
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.instructions.benchmark;
+
+import com.example.instructions.config.PayloadFormat;
+import com.example.instructions.model.CanonicalTrade;
+import com.example.instructions.model.PlatformTrade;
+import com.example.instructions.util.TradeTransformer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outbound throughput of the batch listener against the number of records per poll, on a local single-node
+ * broker. One op is one poll's worth of pre-encoded wrappers: {@code transactional} sends them in one transaction
+ * with the poll's offsets, as in exactly-once mode; {@code acknowledged} sends them and waits for every ack before
+ * the offsets would be committed, as in at-least-once batch mode. The {@code records} counter is the rate to read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionBatchBenchmark {
+
+    private static final String TOPIC = "instructions.outbound";
+    private static final TopicPartition INBOUND = new TopicPartition("instructions.inbound", 0);
+
+    @Param({"1", "10", "100", "1000"})
+    public int batchSize;
+
+    private EmbeddedKafkaKraftBroker broker;
+    private KafkaProducer<String, byte[]> transactionalProducer;
+    private KafkaProducer<String, byte[]> producer;
+    private ConsumerGroupMetadata group;
+    private byte[][] payloads;
+    private String[] keys;
+    private Future<?>[] sends;
+    private long offset;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Records {
+        public long records;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        broker = new EmbeddedKafkaKraftBroker(1, 4, TOPIC, INBOUND.topic());
+        broker.brokerProperties(Map.of("transaction.state.log.replication.factor", "1",
+                "transaction.state.log.min.isr", "1"));
+        broker.afterPropertiesSet();
+
+        Map<String, Object> config = Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString(),
+                ProducerConfig.LINGER_MS_CONFIG, 5,
+                ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4",
+                ProducerConfig.ACKS_CONFIG, "all");
+        producer = new KafkaProducer<>(config, new StringSerializer(), new ByteArraySerializer());
+        Map<String, Object> transactional = new HashMap<>(config);
+        transactional.put(ProducerConfig.TRANSACTIONAL_ID_CONFIG, "bench-tx-" + batchSize);
+        transactionalProducer = new KafkaProducer<>(transactional, new StringSerializer(), new ByteArraySerializer());
+        transactionalProducer.initTransactions();
+        group = new ConsumerGroupMetadata("bench-group");
+
+        ObjectMapper mapper = PayloadFormat.JSON.newPayloadMapper();
+        TradeTransformer transformer = new TradeTransformer();
+        List<CanonicalTrade> trades = BenchmarkData.trades(batchSize);
+        payloads = new byte[batchSize][];
+        keys = new String[batchSize];
+        for (int i = 0; i < batchSize; i++) {
+            PlatformTrade trade = transformer.transformToPlatformTrade(trades.get(i));
+            keys[i] = trade.getSecurity();
+            payloads[i] = mapper.writeValueAsBytes(new PlatformTrade.PlatformTradeWrapper("ACCT123", trade));
+        }
+        sends = new Future<?>[batchSize];
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        transactionalProducer.close();
+        producer.close();
+        broker.destroy();
+    }
+
+    @Benchmark
+    public void transactional(Records counter) {
+        transactionalProducer.beginTransaction();
+        for (int i = 0; i < batchSize; i++) {
+            transactionalProducer.send(new ProducerRecord<>(TOPIC, keys[i], payloads[i]));
+        }
+        offset += batchSize;
+        transactionalProducer.sendOffsetsToTransaction(Map.of(INBOUND, new OffsetAndMetadata(offset)), group);
+        transactionalProducer.commitTransaction();
+        counter.records += batchSize;
+    }
+
+    @Benchmark
+    public void acknowledged(Records counter) throws InterruptedException, ExecutionException {
+        for (int i = 0; i < batchSize; i++) {
+            sends[i] = producer.send(new ProducerRecord<>(TOPIC, keys[i], payloads[i]));
+        }
+        for (Future<?> send : sends) {
+            send.get();
+        }
+        counter.records += batchSize;
+    }
+}
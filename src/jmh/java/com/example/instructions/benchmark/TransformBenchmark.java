@@ -0,0 +1,46 @@
+package com.example.instructions.benchmark;
+
+import com.example.instructions.model.CanonicalTrade;
+import com.example.instructions.model.PlatformTrade;
+import com.example.instructions.util.TradeTransformer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TradeTransformer#transformToPlatformTrade} over a rotating set of distinct trades; one op is one trade.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransformBenchmark {
+
+    private TradeTransformer transformer;
+    private CanonicalTrade[] trades;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        transformer = new TradeTransformer();
+        trades = BenchmarkData.trades(4_096).toArray(new CanonicalTrade[0]);
+    }
+
+    @Benchmark
+    public PlatformTrade transformToPlatformTrade() {
+        CanonicalTrade trade = trades[next];
+        next = (next + 1) & (trades.length - 1);
+        return transformer.transformToPlatformTrade(trade);
+    }
+}
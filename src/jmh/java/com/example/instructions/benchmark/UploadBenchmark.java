@@ -0,0 +1,134 @@
+package com.example.instructions.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.FileAppender;
+import com.example.instructions.config.JacksonConfig;
+import com.example.instructions.model.CanonicalTrade;
+import com.example.instructions.service.DedupShards;
+import com.example.instructions.service.KafkaPublisher;
+import com.example.instructions.service.PositionAggregator;
+import com.example.instructions.service.RejectsReports;
+import com.example.instructions.service.TradeAuditLog;
+import com.example.instructions.service.TradeDeduplicator;
+import com.example.instructions.service.TradeLogSampler;
+import com.example.instructions.service.TradeMetrics;
+import com.example.instructions.service.TradePipeline;
+import com.example.instructions.service.TradeService;
+import com.example.instructions.util.PlatformRoutes;
+import com.example.instructions.util.SecurityDictionary;
+import com.example.instructions.util.TradeTransformer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A whole CSV upload through {@link TradeService#processStream}, from parsing to acknowledged sends over the stub
+ * template of {@link ProcessTradeBenchmark}. {@code invalidPercent} of the rows have a blank security ID or
+ * account number. Application logging is at WARN and goes to {@code target/jmh-logging/upload.log}, and rejected
+ * rows are listed in {@code upload.rejects.csv} next to it, so the cost of reporting bad rows is included. One op is
+ * one file of 10,000 rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UploadBenchmark {
+
+    private static final int TRADES = 10_000;
+    private static final Path LOG_DIRECTORY = Path.of("target/jmh-logging");
+
+    @Param({"0", "50"})
+    public int invalidPercent;
+
+    private final Logger appLogger = (Logger) LoggerFactory.getLogger("com.example.instructions");
+    private FileAppender<ILoggingEvent> appender;
+    private TradeService tradeService;
+    private TradePipeline tradePipeline;
+    private byte[] csv;
+
+    @Setup
+    public void setUp() {
+        configureLogging();
+
+        TradeMetrics tradeMetrics = new TradeMetrics(new CompositeMeterRegistry());
+        TradeLogSampler logSampler = new TradeLogSampler(1, Duration.ofMinutes(1));
+        KafkaPublisher publisher = new KafkaPublisher(new ProcessTradeBenchmark.AcknowledgingTemplate(), tradeMetrics,
+                logSampler, 20_000);
+        JacksonConfig jacksonConfig = new JacksonConfig();
+        tradePipeline = new TradePipeline(0, 1024);
+        tradeService = new TradeService(new TradeTransformer(), publisher, jacksonConfig.objectMapper(),
+                jacksonConfig.csvMapper(), tradePipeline,
+                new TradeAuditLog(Duration.ofHours(1), 1_000_000, 65_536, Duration.ofMinutes(5), 0, new SecurityDictionary()),
+                tradeMetrics, new TradeDeduplicator(false, Duration.ofMinutes(10), 1),
+                new DedupShards(false, Duration.ofMinutes(10), 1), new PositionAggregator(), logSampler,
+                PlatformRoutes.single("ACCT123", "instructions.outbound"),
+                new RejectsReports(LOG_DIRECTORY, Duration.ofHours(1)));
+
+        List<CanonicalTrade> trades = BenchmarkData.trades(TRADES);
+        int invalid = TRADES * invalidPercent / 100;
+        for (int i = 0; i < invalid; i++) {
+            // spread evenly over the file
+            CanonicalTrade trade = trades.get((int) ((long) i * TRADES / invalid));
+            if (i % 2 == 0) {
+                trade.setSecurityId("");
+            } else {
+                trade.setAccountNumber("");
+            }
+        }
+        csv = BenchmarkData.csv(trades);
+    }
+
+    @TearDown
+    public void tearDown() {
+        tradePipeline.shutdown();
+        appLogger.detachAppender(appender);
+        appender.stop();
+    }
+
+    @Benchmark
+    public int processCsv() throws IOException {
+        return tradeService.processStream("trades.csv", new ByteArrayInputStream(csv),
+                tradeService.newProgress("upload"));
+    }
+
+    private void configureLogging() {
+        appLogger.setLevel(Level.WARN);
+        appLogger.setAdditive(false);
+
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(appLogger.getLoggerContext());
+        encoder.setPattern("%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p --- [%t] %-40.40logger{39} : %m%n");
+        encoder.start();
+
+        appender = new FileAppender<>();
+        appender.setContext(appLogger.getLoggerContext());
+        appender.setFile(LOG_DIRECTORY.resolve("upload.log").toString());
+        appender.setAppend(false);
+        appender.setEncoder(encoder);
+        appender.start();
+        appLogger.addAppender(appender);
+    }
+}
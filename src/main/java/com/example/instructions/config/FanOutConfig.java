@@ -0,0 +1,31 @@
+package com.example.instructions.config;
+
+import com.example.instructions.util.PlatformRoutes;
+import com.example.instructions.util.PlatformRules;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+@Configuration
+@EnableConfigurationProperties(FanOutProperties.class)
+public class FanOutConfig {
+
+    /**
+     * The platforms trades are published to, with their rules compiled once here; a misconfigured platform fails
+     * the startup.
+     */
+    @Bean
+    public PlatformRoutes platformRoutes(FanOutProperties properties,
+                                         @Value("${trade.platform.id:ACCT123}") String platformId,
+                                         @Value("${app.kafka.topic.outbound}") String outboundTopic) {
+        if (properties.platforms().isEmpty()) {
+            return PlatformRoutes.single(platformId, outboundTopic);
+        }
+        return new PlatformRoutes(properties.platforms().stream()
+                .map(p -> new PlatformRules(p.id(), p.topic(), p.accountMask(), p.tradeTypes()))
+                .toList());
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.instructions.config;
+
+import com.example.instructions.util.PlatformRules;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code trade.fan-out.platforms}: the downstream platforms every accepted trade is published to. When none are
+ * listed, trades go to the single platform {@code trade.platform.id} on {@code app.kafka.topic.outbound}.
+ */
+@ConfigurationProperties(prefix = "trade.fan-out")
+public record FanOutProperties(List<Platform> platforms) {
+
+    public FanOutProperties {
+        platforms = platforms != null ? List.copyOf(platforms) : List.of();
+    }
+
+    /**
+     * @param tradeTypes label per normalized type code ({@code B}, {@code S}, {@code U}); unlisted codes are sent
+     *                   as they are
+     */
+    public record Platform(String id, String topic, PlatformRules.AccountMask accountMask,
+                           Map<String, String> tradeTypes) {
+    }
+}
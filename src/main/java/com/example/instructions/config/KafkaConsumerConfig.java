@@ -0,0 +1,75 @@
+package com.example.instructions.config;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultAfterRollbackProcessor;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.time.Duration;
+import java.util.Properties;
+
+@Configuration
+public class KafkaConsumerConfig {
+
+    public static final String BATCH_LISTENER_CONTAINER_FACTORY = "batchKafkaListenerContainerFactory";
+
+    /**
+     * Container factory for the batch listener: starts from the Boot defaults (spring.kafka.listener.*),
+     * then switches to batch delivery with manual acknowledgement so offsets are committed only after the
+     * outbound sends of a poll have been acknowledged.
+     * <p>
+     * A poll is at most {@code max-poll-records} records; when fewer are waiting, the broker holds the fetch until
+     * {@code fetch-min-bytes} have arrived or {@code fetch-max-wait} has passed. In exactly-once mode (see
+     * {@link KafkaTransactionConfig}) a poll is one transaction, so these set its size and time bounds, and only
+     * committed inbound records are read.
+     * <p>
+     * A failed poll is delivered again {@code retries} times, {@code retry-interval} apart; then its records are
+     * published to {@code app.kafka.topic.dead-letter} by a {@link TradeDeadLetterRecoverer} and their offsets
+     * committed, so no trade is skipped without a record of it.
+     */
+    @Bean(BATCH_LISTENER_CONTAINER_FACTORY)
+    @ConditionalOnProperty(name = "app.kafka.listener.batch.enabled", havingValue = "true")
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> batchKafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory,
+            @Value("${app.kafka.listener.batch.concurrency:1}") int concurrency,
+            @Value("${app.kafka.listener.batch.max-poll-records:500}") int maxPollRecords,
+            @Value("${app.kafka.listener.batch.fetch-min-bytes:1}") int fetchMinBytes,
+            @Value("${app.kafka.listener.batch.fetch-max-wait:500ms}") Duration fetchMaxWait,
+            @Value("${app.kafka.listener.batch.retries:2}") long retries,
+            @Value("${app.kafka.listener.batch.retry-interval:1s}") Duration retryInterval,
+            @Value("${app.kafka.topic.dead-letter:${instructions.inbound.topic}.dlt}") String deadLetterTopic,
+            KafkaTemplate<String, byte[]> kafkaTemplate) {
+
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        Properties consumerProperties = factory.getContainerProperties().getKafkaConsumerProperties();
+        consumerProperties.setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(maxPollRecords));
+        consumerProperties.setProperty(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, String.valueOf(fetchMinBytes));
+        consumerProperties.setProperty(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, String.valueOf(fetchMaxWait.toMillis()));
+        TradeDeadLetterRecoverer recoverer = new TradeDeadLetterRecoverer(kafkaTemplate, deadLetterTopic);
+        FixedBackOff backOff = new FixedBackOff(retryInterval.toMillis(), retries);
+        // Set by Boot's configurer when a KafkaTransactionManager is defined.
+        if (factory.getContainerProperties().getKafkaAwareTransactionManager() != null) {
+            consumerProperties.setProperty(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+            // The failed poll's transaction is rolled back first; recovery commits its offsets in one of its own.
+            factory.setAfterRollbackProcessor(new DefaultAfterRollbackProcessor<>(recoverer, backOff, kafkaTemplate, true));
+        } else {
+            factory.setCommonErrorHandler(new DefaultErrorHandler(recoverer, backOff));
+        }
+        return factory;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.instructions.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.transaction.KafkaTransactionManager;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+
+/**
+ * Exactly-once mode, on when {@code spring.kafka.producer.transaction-id-prefix} is set: each poll of the batch
+ * listener runs in one Kafka transaction that holds its outbound sends and its consumer offsets, so a batch is
+ * either published and consumed as a whole or, after a crash or failure, not at all and delivered again.
+ * <p>
+ * The transaction manager replaces Boot's so that it keeps transaction synchronization on: the
+ * {@link com.example.instructions.service.TradeService} moves positions and keeps dedup fingerprints only once the
+ * transaction has committed. The template replaces Boot's so that uploads, which run outside any transaction, keep
+ * sending through a non-transactional producer.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.kafka.producer.transaction-id-prefix")
+public class KafkaTransactionConfig {
+
+    public KafkaTransactionConfig(@Value("${app.kafka.listener.batch.enabled:false}") boolean batchListener) {
+        if (!batchListener) {
+            // The record listener would commit one transaction per trade.
+            throw new IllegalStateException(
+                    "spring.kafka.producer.transaction-id-prefix needs app.kafka.listener.batch.enabled=true");
+        }
+    }
+
+    @Bean
+    public KafkaTransactionManager<?, ?> kafkaTransactionManager(ProducerFactory<?, ?> producerFactory) {
+        KafkaTransactionManager<?, ?> transactionManager = new KafkaTransactionManager<>(producerFactory);
+        transactionManager.setTransactionSynchronization(AbstractPlatformTransactionManager.SYNCHRONIZATION_ALWAYS);
+        return transactionManager;
+    }
+
+    @Bean
+    public KafkaTemplate<?, ?> kafkaTemplate(ProducerFactory<Object, Object> producerFactory) {
+        KafkaTemplate<Object, Object> template = new KafkaTemplate<>(producerFactory);
+        template.setAllowNonTransactional(true);
+        return template;
+    }
+}
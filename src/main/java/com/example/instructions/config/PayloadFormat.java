@@ -0,0 +1,84 @@
+package com.example.instructions.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+
+/**
+ * Encodings of Kafka trade payloads. The format of a record is named by its {@link #HEADER} header; a record
+ * without one, or with a content type that is none of these, is JSON.
+ * <p>
+ * Smile and CBOR carry the same data model as JSON: BigDecimals are written as binary decimals rather than text,
+ * and Smile also refers back to field names it has already written in the same record.
+ */
+public enum PayloadFormat {
+
+    JSON("application/json", JsonFactory::new),
+    SMILE("application/x-jackson-smile", SmileFactory::new),
+    CBOR("application/cbor", CBORFactory::new);
+
+    /** Record header holding {@link #contentType()}. */
+    public static final String HEADER = "contentType";
+
+    private final String contentType;
+    private final byte[] headerValue;
+    private final Supplier<JsonFactory> factory;
+
+    PayloadFormat(String contentType, Supplier<JsonFactory> factory) {
+        this.contentType = contentType;
+        this.headerValue = contentType.getBytes(StandardCharsets.US_ASCII);
+        this.factory = factory;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    /** {@link #contentType()} as header bytes; shared, so callers must not modify it. */
+    public byte[] headerValue() {
+        return headerValue;
+    }
+
+    /**
+     * A mapper for this format, configured like {@link JacksonConfig#objectMapper()} except that it ignores unknown
+     * properties, as the {@code JsonDeserializer} that read inbound records before did, so producers can add fields.
+     */
+    public ObjectMapper newMapper() {
+        return JacksonConfig.configure(new ObjectMapper(factory.get()))
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    /**
+     * A mapper for outbound trade payloads. Unlike {@link #newMapper()} it writes dates as timestamps, as the
+     * producer's {@code JsonSerializer} did before payloads were encoded here, so consumers keep receiving
+     * {@code "timestamp":[2025,8,4,21,15,40]}.
+     */
+    public ObjectMapper newPayloadMapper() {
+        return newMapper().enable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    /**
+     * @return the format named by a {@link #HEADER} header value, compared without case or parameters such as
+     *         {@code ;charset=UTF-8}; JSON if {@code headerValue} is null or names none of these formats
+     */
+    public static PayloadFormat of(byte[] headerValue) {
+        if (headerValue == null) {
+            return JSON;
+        }
+        String contentType = new String(headerValue, StandardCharsets.US_ASCII);
+        int parameters = contentType.indexOf(';');
+        String mediaType = (parameters < 0 ? contentType : contentType.substring(0, parameters)).trim();
+        for (PayloadFormat format : values()) {
+            if (format.contentType.equalsIgnoreCase(mediaType)) {
+                return format;
+            }
+        }
+        return JSON;
+    }
+}
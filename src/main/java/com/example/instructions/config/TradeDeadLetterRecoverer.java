@@ -0,0 +1,52 @@
+package com.example.instructions.config;
+
+import com.example.instructions.model.CanonicalTrade;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Publishes inbound records the batch listener gave up on to a dead-letter topic, with Spring's exception and
+ * original-offset headers. The listener only holds the decoded {@link CanonicalTrade}, so it is encoded again in
+ * the {@link PayloadFormat} named by the record's own {@link PayloadFormat#HEADER} header, which is copied along.
+ */
+public class TradeDeadLetterRecoverer extends DeadLetterPublishingRecoverer {
+
+    private final Map<PayloadFormat, ObjectWriter> writers = new EnumMap<>(PayloadFormat.class);
+
+    public TradeDeadLetterRecoverer(KafkaOperations<String, byte[]> template, String deadLetterTopic) {
+        // A negative partition lets the producer pick one, so the topic needs no particular partition count.
+        super(template, (record, ex) -> new TopicPartition(deadLetterTopic, -1));
+        for (PayloadFormat format : PayloadFormat.values()) {
+            writers.put(format, format.newMapper().writerFor(CanonicalTrade.class));
+        }
+    }
+
+    @Override
+    protected ProducerRecord<Object, Object> createProducerRecord(ConsumerRecord<?, ?> record,
+            TopicPartition topicPartition, Headers headers, byte[] key, byte[] value) {
+        Object payload = value;
+        if (payload == null && record.value() != null) {
+            Header contentType = record.headers().lastHeader(PayloadFormat.HEADER);
+            PayloadFormat format = PayloadFormat.of(contentType != null ? contentType.value() : null);
+            try {
+                payload = writers.get(format).writeValueAsBytes(record.value());
+            } catch (JsonProcessingException e) {
+                throw new SerializationException("Can't encode dead-letter trade as " + format, e);
+            }
+        }
+        return new ProducerRecord<>(topicPartition.topic(),
+                topicPartition.partition() < 0 ? null : topicPartition.partition(),
+                record.key(), payload, headers);
+    }
+}
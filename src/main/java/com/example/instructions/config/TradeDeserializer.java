@@ -0,0 +1,49 @@
+package com.example.instructions.config;
+
+import com.example.instructions.model.CanonicalTrade;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Inbound value deserializer: reads a {@link CanonicalTrade} in the {@link PayloadFormat} named by the record's
+ * {@link PayloadFormat#HEADER} header, or as JSON when there is none or it names no known format.
+ */
+public class TradeDeserializer implements Deserializer<CanonicalTrade> {
+
+    private final Map<PayloadFormat, ObjectReader> readers = new EnumMap<>(PayloadFormat.class);
+
+    public TradeDeserializer() {
+        for (PayloadFormat format : PayloadFormat.values()) {
+            readers.put(format, format.newMapper().readerFor(CanonicalTrade.class));
+        }
+    }
+
+    @Override
+    public CanonicalTrade deserialize(String topic, byte[] data) {
+        return read(PayloadFormat.JSON, data);
+    }
+
+    @Override
+    public CanonicalTrade deserialize(String topic, Headers headers, byte[] data) {
+        Header contentType = headers != null ? headers.lastHeader(PayloadFormat.HEADER) : null;
+        return read(PayloadFormat.of(contentType != null ? contentType.value() : null), data);
+    }
+
+    private CanonicalTrade read(PayloadFormat format, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            return readers.get(format).readValue(data);
+        } catch (IOException e) {
+            throw new SerializationException("Can't deserialize " + format + " trade", e);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.instructions.controller;
+
+import com.example.instructions.model.AuditRecord;
+import com.example.instructions.service.TradeAuditLog;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import java.time.Instant;
+import java.util.List;
+
+@Tag(name = "Trade Audit", description = "Queries over the retained audit trail of ingested trades.")
+@RestController
+@RequestMapping("/instructions/v1/api/audit")
+public class AuditController {
+
+    private static final int MAX_LIMIT = 10_000;
+
+    private final TradeAuditLog auditLog;
+
+    public AuditController(TradeAuditLog auditLog) {
+        this.auditLog = auditLog;
+    }
+
+    @Operation(
+        summary = "Query Audited Trades",
+        description = "Returns retained trades, newest first, filtered by account, security and record time."
+    )
+    @GetMapping("/trades")
+    public ResponseEntity<List<AuditRecord>> queryTrades(
+        @Parameter(description = "Exact account number.") @RequestParam(required = false) String account,
+        @Parameter(description = "Security ID (case-insensitive).") @RequestParam(required = false) String security,
+        @Parameter(description = "Inclusive lower bound on record time (ISO-8601 instant).")
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+        @Parameter(description = "Inclusive upper bound on record time (ISO-8601 instant).")
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+        @Parameter(description = "Maximum number of trades to return.") @RequestParam(defaultValue = "100") int limit) {
+
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(auditLog.query(account, security, from, to, limit));
+    }
+
+    @Operation(summary = "Audit Log Statistics", description = "Retained and evicted entry counts and estimated heap usage.")
+    @GetMapping("/stats")
+    public TradeAuditLog.Stats stats() {
+        return auditLog.stats();
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.instructions.controller;
+
+import com.example.instructions.model.Position;
+import com.example.instructions.service.PositionAggregator;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@Tag(name = "Positions", description = "Net quantity and notional of the trades published so far.")
+@RestController
+@RequestMapping("/instructions/v1/api/positions")
+public class PositionController {
+
+    private final PositionAggregator positions;
+
+    public PositionController(PositionAggregator positions) {
+        this.positions = positions;
+    }
+
+    @Operation(summary = "Security Position", description = "Live net position of one security.")
+    @GetMapping("/securities/{securityId}")
+    public ResponseEntity<Position> security(
+        @Parameter(description = "Security ID (case-insensitive).") @PathVariable String securityId) {
+        Position position = positions.security(securityId);
+        return position != null ? ResponseEntity.ok(position) : ResponseEntity.notFound().build();
+    }
+
+    @Operation(summary = "Account Position", description = "Live net position of one account.")
+    @GetMapping("/accounts/{accountNumber}")
+    public ResponseEntity<Position> account(
+        @Parameter(description = "Exact account number.") @PathVariable String accountNumber) {
+        Position position = positions.account(accountNumber);
+        return position != null ? ResponseEntity.ok(position) : ResponseEntity.notFound().build();
+    }
+
+    @Operation(
+        summary = "All Positions",
+        description = "Every security and account position as of the last periodic snapshot."
+    )
+    @GetMapping
+    public PositionAggregator.Snapshot snapshot() {
+        return positions.snapshot();
+    }
+}
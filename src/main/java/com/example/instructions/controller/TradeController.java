@@ -1,9 +1,26 @@
 package com.example.instructions.controller;
 
+import com.example.instructions.model.EntryCounts;
+import com.example.instructions.model.FeedAck;
+import com.example.instructions.model.UploadJobStatus;
+import com.example.instructions.service.IngestionProgress;
+import com.example.instructions.service.RejectsReports;
 import com.example.instructions.service.TradeService;
+import com.example.instructions.service.UploadJobService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.MvcUriComponentsBuilder;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -12,6 +29,11 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.UUID;
+
 @Tag(name = "Trade Instruction Ingestion", description = "Endpoints for uploading and ingesting trade instruction files.")
 @RestController
 @RequestMapping("/instructions/v1/api")
@@ -19,11 +41,21 @@ public class TradeController {
 
     private static final Logger log = LoggerFactory.getLogger(TradeController.class);
 
+    private static final String FEED_TYPE = "application/x-ndjson";
+    private static final int MAX_BATCH_SIZE = 100_000;
+
     private final TradeService tradeService;
+    private final UploadJobService uploadJobService;
+    private final RejectsReports rejectsReports;
+    private final ObjectMapper objectMapper;
 
     // Inject the TradeService
-    public TradeController(TradeService tradeService) {
+    public TradeController(TradeService tradeService, UploadJobService uploadJobService,
+                           RejectsReports rejectsReports, ObjectMapper objectMapper) {
         this.tradeService = tradeService;
+        this.uploadJobService = uploadJobService;
+        this.rejectsReports = rejectsReports;
+        this.objectMapper = objectMapper;
     }
 
     @Operation(
@@ -37,7 +69,8 @@ public class TradeController {
     )
     @PostMapping("/upload")    
     public ResponseEntity<String> uploadTradeInstructions(
-        @Parameter(description = "The trade instruction file (.csv or .json) to upload.")
+        @Parameter(description = "The trade instruction file (.csv, .json or .ndjson, optionally gzipped as .gz, "
+            + "or a .zip of such files) to upload.")
         @RequestParam("file") MultipartFile file) {
         
         if (file.isEmpty()) {
@@ -45,9 +78,20 @@ public class TradeController {
         }
 
         try {            
-            int recordCount = tradeService.processFileUpload(file);            
-            return ResponseEntity.accepted().body("File " + file.getOriginalFilename() + 
-                                                 " accepted. Processed " + recordCount + " records successfully.");
+            IngestionProgress result = tradeService.processFileUpload(file);
+            String body = "File " + file.getOriginalFilename() + " accepted. Processed " + result.read()
+                + " records: " + result.published() + " acknowledged, " + result.failed() + " failed, "
+                + result.rejected() + " rejected.";
+            if (result.rejectsReportId() != null) {
+                body += " Not published by reason: " + result.rejections() + "; line numbers at "
+                    + MvcUriComponentsBuilder.fromMethodName(TradeController.class, "getRejectsReport",
+                        result.rejectsReportId()).toUriString() + ".";
+            }
+            for (EntryCounts entry : result.entries()) {
+                body += " " + entry.name() + ": " + entry.recordsRead() + " read, " + entry.published()
+                    + " acknowledged, " + entry.failed() + " failed, " + entry.rejected() + " rejected.";
+            }
+            return ResponseEntity.accepted().body(body);
 
         } catch (IllegalArgumentException e) {            
             log.warn("Bad Request during file upload: {}", e.getMessage());
@@ -58,4 +102,134 @@ public class TradeController {
             return ResponseEntity.internalServerError().body("Failed to process file: " + e.getMessage());
         }
     }
+
+    @Operation(
+        summary = "Stream Trade Instructions",
+        description = "Accepts an open-ended, chunked application/x-ndjson body and processes each trade as it "
+            + "arrives. The response is NDJSON as well: one line of running totals after every batchSize trades, "
+            + "once they are published or rejected, and a last line when the request body ends.",
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Feed processed; the last line has complete=true."),
+            @ApiResponse(responseCode = "400", description = "Invalid batch size, or the feed is not valid NDJSON. "
+                + "Once acknowledgements have been sent, a malformed feed ends with an error line instead.")
+        }
+    )
+    @PostMapping(value = "/stream", consumes = FEED_TYPE, produces = FEED_TYPE)
+    public void streamTradeInstructions(
+        @Parameter(description = "Trades per acknowledgement line.") @RequestParam(defaultValue = "1000") int batchSize,
+        HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+        if (batchSize <= 0 || batchSize > MAX_BATCH_SIZE) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "batchSize must be between 1 and " + MAX_BATCH_SIZE);
+            return;
+        }
+        response.setContentType(FEED_TYPE);
+        ServletOutputStream out = response.getOutputStream();
+        String feedId = UUID.randomUUID().toString();
+        IngestionProgress progress = tradeService.newProgress(feedId);
+        long[] batches = {0};
+
+        try {
+            tradeService.processFeed("feed " + feedId, request.getInputStream(), progress, batchSize,
+                p -> writeAck(out, feedAck(feedId, ++batches[0], p, false, null)));
+            writeAck(out, feedAck(feedId, batches[0], progress, true, null));
+
+        } catch (IllegalArgumentException | JsonProcessingException e) {
+            log.warn("Feed {} stopped: {}", feedId, e.getMessage());
+            if (!response.isCommitted()) {
+                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            }
+            writeAck(out, feedAck(feedId, batches[0], progress, false, e.getMessage()));
+        }
+    }
+
+    private FeedAck feedAck(String feedId, long batch, IngestionProgress progress, boolean complete, String error) {
+        String rejectsReport = complete || error != null ? progress.rejectsReportId() : null;
+        return new FeedAck(feedId, batch, progress.read(), progress.published(), progress.rejected(),
+            progress.failed(), progress.rejections(), complete, rejectsReport, error);
+    }
+
+    private void writeAck(ServletOutputStream out, FeedAck ack) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(ack));
+            out.write('\n');
+            out.flush();
+        } catch (IOException e) {
+            // The client has gone; stop reading its feed.
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Operation(
+        summary = "Submit Trade Instructions File as a Job",
+        description = "Spools a .csv, .json or .ndjson file to disk and processes it in the background. "
+            + "Poll the returned job for progress.",
+        responses = {
+            @ApiResponse(responseCode = "202", description = "File spooled and queued; the body holds the job status."),
+            @ApiResponse(responseCode = "400", description = "Invalid file type or empty file."),
+            @ApiResponse(responseCode = "500", description = "The file could not be spooled.")
+        }
+    )
+    @PostMapping("/upload/jobs")
+    public ResponseEntity<?> submitUploadJob(
+        @Parameter(description = "The trade instruction file (.csv, .json or .ndjson, optionally gzipped as .gz, "
+            + "or a .zip of such files) to upload.")
+        @RequestParam("file") MultipartFile file) {
+
+        try {
+            UploadJobStatus status = uploadJobService.submit(file);
+            return ResponseEntity.accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentRequest().path("/{jobId}")
+                    .buildAndExpand(status.jobId()).toUri())
+                .body(status);
+
+        } catch (IllegalArgumentException e) {
+            log.warn("Bad Request during file upload: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+
+        } catch (RuntimeException e) {
+            log.error("Error spooling file upload: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().body("Failed to accept file: " + e.getMessage());
+        }
+    }
+
+    @Operation(
+        summary = "Get Upload Job Status",
+        description = "Records read, published, rejected and failed so far, and the current throughput.",
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Current job status."),
+            @ApiResponse(responseCode = "404", description = "Unknown or expired job ID.")
+        }
+    )
+    @GetMapping("/upload/jobs/{jobId}")
+    public ResponseEntity<UploadJobStatus> getUploadJob(@PathVariable String jobId) {
+        UploadJobStatus status = uploadJobService.status(jobId);
+        return status != null ? ResponseEntity.ok(status) : ResponseEntity.notFound().build();
+    }
+
+    @Operation(
+        summary = "Download Rejects Report",
+        description = "The records of an upload, feed or job that were not published, as CSV rows of line and "
+            + "reason. The ID is the rejectsReport of the upload's response.",
+        responses = {
+            @ApiResponse(responseCode = "200", description = "The report."),
+            @ApiResponse(responseCode = "409", description = "The upload is still running, so the report is not "
+                + "complete yet."),
+            @ApiResponse(responseCode = "404", description = "Unknown ID, no rejected records, or the report has "
+                + "passed trade.upload.rejects-retention.")
+        }
+    )
+    @GetMapping(value = "/rejects/{reportId}", produces = "text/csv")
+    public ResponseEntity<Resource> getRejectsReport(@PathVariable String reportId) {
+        if (rejectsReports.isWriting(reportId)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        Path report = rejectsReports.find(reportId);
+        if (report == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + report.getFileName() + "\"")
+            .body(new FileSystemResource(report));
+    }
 }
\ No newline at end of file
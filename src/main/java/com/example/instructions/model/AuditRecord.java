@@ -0,0 +1,9 @@
+package com.example.instructions.model;
+
+import java.time.Instant;
+
+/**
+ * A trade as retained by the audit log, together with the time it was recorded.
+ */
+public record AuditRecord(Instant recordedAt, CanonicalTrade trade) {
+}
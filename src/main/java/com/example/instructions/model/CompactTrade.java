@@ -0,0 +1,221 @@
+package com.example.instructions.model;
+
+import com.example.instructions.util.SecurityDictionary;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Heap-lean form of a trade for long-lived stores.
+ * <p>
+ * Price and amount are kept as an unscaled {@code long} plus a one-byte scale, the timestamp as nanoseconds since
+ * the epoch (the LocalDateTime read as UTC), the security ID as a {@link SecurityDictionary} code and the trade type
+ * as a one-byte code for the usual spellings. A value that does not fit (more than 18 digits, an extreme scale or
+ * date, an unusual trade type spelling or a full dictionary) is kept in its original form, so conversion back to
+ * {@link CanonicalTrade} or {@link PlatformTrade} is always exact.
+ */
+public final class CompactTrade {
+
+    private static final String[] TRADE_TYPES = {
+        null, "B", "S", "BUY", "SELL", "b", "s", "buy", "sell", "Buy", "Sell"
+    };
+    private static final byte TYPE_RAW = -1;
+
+    private static final byte HAS_QUANTITY = 1;
+    private static final byte HAS_PRICE = 1 << 1;
+    private static final byte HAS_AMOUNT = 1 << 2;
+    private static final byte HAS_TIMESTAMP = 1 << 3;
+    private static final byte HAS_SECURITY = 1 << 4;
+
+    private final String accountNumber;
+    private final long quantity;
+    private final long priceUnscaled;
+    private final long amountUnscaled;
+    private final long timestampEpochNanos;
+    private final int securityCode;
+    private final byte priceScale;
+    private final byte amountScale;
+    private final byte tradeType;
+    private final byte flags;
+    private final Overflow overflow;
+
+    private CompactTrade(String accountNumber, String securityId, String tradeType, Long quantity, BigDecimal price,
+                         BigDecimal amount, LocalDateTime timestamp, SecurityDictionary dictionary) {
+        // Only trades with a value that has no compact form pay for an Overflow.
+        Overflow spill = null;
+        byte present = 0;
+
+        this.accountNumber = accountNumber;
+
+        int code = SecurityDictionary.NO_CODE;
+        if (securityId != null) {
+            present |= HAS_SECURITY;
+            code = dictionary.encode(securityId);
+            if (code == SecurityDictionary.NO_CODE) {
+                spill = Overflow.orNew(spill);
+                spill.securityId = securityId;
+            }
+        }
+        this.securityCode = code;
+
+        byte typeCode = typeCode(tradeType);
+        if (typeCode == TYPE_RAW) {
+            spill = Overflow.orNew(spill);
+            spill.tradeType = tradeType;
+        }
+        this.tradeType = typeCode;
+
+        if (quantity != null) {
+            present |= HAS_QUANTITY;
+        }
+        this.quantity = quantity != null ? quantity : 0L;
+
+        long priceUnits = 0;
+        byte priceDigitsScale = 0;
+        if (price != null) {
+            present |= HAS_PRICE;
+            if (fits(price)) {
+                priceUnits = price.unscaledValue().longValue();
+                priceDigitsScale = (byte) price.scale();
+            } else {
+                spill = Overflow.orNew(spill);
+                spill.price = price;
+            }
+        }
+        this.priceUnscaled = priceUnits;
+        this.priceScale = priceDigitsScale;
+
+        long amountUnits = 0;
+        byte amountDigitsScale = 0;
+        if (amount != null) {
+            present |= HAS_AMOUNT;
+            if (fits(amount)) {
+                amountUnits = amount.unscaledValue().longValue();
+                amountDigitsScale = (byte) amount.scale();
+            } else {
+                spill = Overflow.orNew(spill);
+                spill.amount = amount;
+            }
+        }
+        this.amountUnscaled = amountUnits;
+        this.amountScale = amountDigitsScale;
+
+        long nanos = 0;
+        if (timestamp != null) {
+            present |= HAS_TIMESTAMP;
+            try {
+                nanos = Math.addExact(Math.multiplyExact(timestamp.toEpochSecond(ZoneOffset.UTC), 1_000_000_000L),
+                        timestamp.getNano());
+            } catch (ArithmeticException e) {
+                spill = Overflow.orNew(spill);
+                spill.timestamp = timestamp;
+            }
+        }
+        this.timestampEpochNanos = nanos;
+
+        this.flags = present;
+        this.overflow = spill;
+    }
+
+    public static CompactTrade from(CanonicalTrade trade, SecurityDictionary dictionary) {
+        return new CompactTrade(trade.getAccountNumber(), trade.getSecurityId(), trade.getTradeType(),
+                trade.getQuantity(), trade.getPrice(), trade.getAmount(), trade.getTimestamp(), dictionary);
+    }
+
+    public static CompactTrade from(PlatformTrade trade, SecurityDictionary dictionary) {
+        return new CompactTrade(trade.getAccount(), trade.getSecurity(), trade.getType(), null, null,
+                trade.getAmount(), trade.getTimestamp(), dictionary);
+    }
+
+    public CanonicalTrade toCanonicalTrade(SecurityDictionary dictionary) {
+        return new CanonicalTrade(accountNumber, getSecurityId(dictionary), getTradeType(), getQuantity(), getPrice(),
+                getAmount(), getTimestamp());
+    }
+
+    public PlatformTrade toPlatformTrade(SecurityDictionary dictionary) {
+        return new PlatformTrade(accountNumber, getSecurityId(dictionary), getTradeType(), getAmount(), getTimestamp());
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    /**
+     * @return the dictionary code of the security ID, or {@link SecurityDictionary#NO_CODE}
+     */
+    public int getSecurityCode() {
+        return securityCode;
+    }
+
+    public String getSecurityId(SecurityDictionary dictionary) {
+        if ((flags & HAS_SECURITY) == 0) {
+            return null;
+        }
+        return securityCode != SecurityDictionary.NO_CODE ? dictionary.decode(securityCode) : overflow.securityId;
+    }
+
+    public String getTradeType() {
+        return tradeType == TYPE_RAW ? overflow.tradeType : TRADE_TYPES[tradeType];
+    }
+
+    public Long getQuantity() {
+        return (flags & HAS_QUANTITY) != 0 ? quantity : null;
+    }
+
+    public BigDecimal getPrice() {
+        if ((flags & HAS_PRICE) == 0) {
+            return null;
+        }
+        return overflow != null && overflow.price != null ? overflow.price : BigDecimal.valueOf(priceUnscaled, priceScale);
+    }
+
+    public BigDecimal getAmount() {
+        if ((flags & HAS_AMOUNT) == 0) {
+            return null;
+        }
+        return overflow != null && overflow.amount != null ? overflow.amount
+                : BigDecimal.valueOf(amountUnscaled, amountScale);
+    }
+
+    public LocalDateTime getTimestamp() {
+        if ((flags & HAS_TIMESTAMP) == 0) {
+            return null;
+        }
+        if (overflow != null && overflow.timestamp != null) {
+            return overflow.timestamp;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(timestampEpochNanos, 1_000_000_000L),
+                (int) Math.floorMod(timestampEpochNanos, 1_000_000_000L), ZoneOffset.UTC);
+    }
+
+    private static boolean fits(BigDecimal value) {
+        return value.scale() >= Byte.MIN_VALUE && value.scale() <= Byte.MAX_VALUE
+                && value.unscaledValue().bitLength() < Long.SIZE;
+    }
+
+    private static byte typeCode(String tradeType) {
+        if (tradeType == null) {
+            return 0;
+        }
+        for (byte i = 1; i < TRADE_TYPES.length; i++) {
+            if (TRADE_TYPES[i].equals(tradeType)) {
+                return i;
+            }
+        }
+        return TYPE_RAW;
+    }
+
+    /** Original values for the rare fields that have no compact form. */
+    private static final class Overflow {
+        String securityId;
+        String tradeType;
+        BigDecimal price;
+        BigDecimal amount;
+        LocalDateTime timestamp;
+
+        static Overflow orNew(Overflow overflow) {
+            return overflow != null ? overflow : new Overflow();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.instructions.model;
+
+/**
+ * Outcome counts of one file inside an archive upload; the upload's own counts are the sums over its entries.
+ */
+public record EntryCounts(String name, long recordsRead, long published, long rejected, long failed) {
+}
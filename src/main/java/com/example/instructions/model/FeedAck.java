@@ -0,0 +1,13 @@
+package com.example.instructions.model;
+
+import java.util.Map;
+
+/**
+ * One line of the response to a streamed feed, with totals since the feed started. Intermediate lines are written
+ * after every {@code batchSize} trades, once those trades have a final outcome. The last line has {@code complete}
+ * set, or {@code error} if the feed could not be read to the end; {@code rejectsReport} is the ID under which
+ * {@code GET /instructions/v1/api/rejects/{id}} lists each record that was not published with its line number.
+ */
+public record FeedAck(String feedId, long batch, long recordsRead, long published, long rejected, long failed,
+                      Map<RejectionReason, Long> rejections, boolean complete, String rejectsReport, String error) {
+}
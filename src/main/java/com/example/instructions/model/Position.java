@@ -0,0 +1,11 @@
+package com.example.instructions.model;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Net position of one security or account over the trades published since startup: bought minus sold quantity
+ * and amount. Trades of an unknown type count in {@code trades} only.
+ */
+public record Position(String key, long trades, BigInteger netQuantity, BigDecimal netNotional) {
+}
@@ -0,0 +1,29 @@
+package com.example.instructions.model;
+
+/**
+ * Why a trade did not reach the outbound topic.
+ * <p>
+ * The outcome groups the reasons: {@code rejected} trades failed validation, {@code skipped} trades were
+ * duplicates of one already published, {@code dropped} trades hit an internal error while being prepared, and
+ * {@code failed} trades were sent but not acknowledged by the broker.
+ */
+public enum RejectionReason {
+
+    MISSING_ACCOUNT("rejected"),
+    MISSING_SECURITY_ID("rejected"),
+    INVALID_TRADE("rejected"),
+    DUPLICATE("skipped"),
+    SERIALIZATION_ERROR("dropped"),
+    PROCESSING_ERROR("dropped"),
+    SEND_FAILED("failed");
+
+    private final String outcome;
+
+    RejectionReason(String outcome) {
+        this.outcome = outcome;
+    }
+
+    public String outcome() {
+        return outcome;
+    }
+}
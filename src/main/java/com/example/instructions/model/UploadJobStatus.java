@@ -0,0 +1,22 @@
+package com.example.instructions.model;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Snapshot of an asynchronous upload job. {@code recordsPerSecond} is the rate at which records reached a final
+ * outcome since the job started, up to now or to the time it finished. {@code rejections} breaks the rejected and
+ * failed records down by reason, and {@code GET /instructions/v1/api/rejects/{rejectsReport}} lists each of them with
+ * its line number. For an archive, {@code entries} holds the counts of each file in it that has been started; it is
+ * empty for any other upload.
+ */
+public record UploadJobStatus(String jobId, String fileName, State state, long recordsRead, long published,
+                              long rejected, long failed, Map<RejectionReason, Long> rejections, String rejectsReport,
+                              List<EntryCounts> entries, double recordsPerSecond, Instant submittedAt, Instant startedAt, Instant finishedAt,
+                              String error) {
+
+    public enum State {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+}
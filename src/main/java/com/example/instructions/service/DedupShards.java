@@ -0,0 +1,166 @@
+package com.example.instructions.service;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One {@link TradeDeduplicator} per assigned inbound partition, so the idempotency check of a Kafka trade only
+ * touches state owned by the consumer thread that holds its partition.
+ * <p>
+ * Registered with the listener containers as their rebalance listener. A revoked partition's shard is parked
+ * rather than dropped: if the partition comes back to this instance within the dedup window, which is the usual
+ * case with the cooperative sticky assignor or when it moves between consumer threads of this instance, the shard
+ * is handed over as it was and redeliveries are still recognised. A partition new to this instance, or one lost
+ * without a revocation, starts with an empty shard. Uploads are not partitioned and keep using the shared
+ * {@link TradeDeduplicator}.
+ * <p>
+ * Each consumer thread caches the shards it has looked up by topic and partition number, so the per-record lookup
+ * neither allocates nor hashes a {@link TopicPartition}. Any rebalance callback invalidates every thread's cache.
+ */
+@Component
+public class DedupShards implements ConsumerAwareRebalanceListener {
+
+    private static final Logger log = LoggerFactory.getLogger(DedupShards.class);
+
+    private final boolean enabled;
+    private final Duration window;
+    private final int capacity;
+    private final Clock clock;
+    private final TradeDeduplicator disabled;
+
+    private final ConcurrentHashMap<TopicPartition, TradeDeduplicator> assigned = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<TopicPartition, Parked> parked = new ConcurrentHashMap<>();
+    private final ThreadLocal<ThreadShards> threadShards = ThreadLocal.withInitial(ThreadShards::new);
+    private final AtomicInteger generation = new AtomicInteger();
+
+    @Autowired
+    public DedupShards(@Value("${trade.dedup.enabled:false}") boolean enabled,
+                       @Value("${trade.dedup.window:10m}") Duration window,
+                       @Value("${trade.dedup.partition-capacity:200000}") int capacity) {
+        this(enabled, window, capacity, Clock.systemUTC());
+    }
+
+    DedupShards(boolean enabled, Duration window, int capacity, Clock clock) {
+        this.enabled = enabled;
+        this.window = window;
+        this.capacity = capacity;
+        this.clock = clock;
+        this.disabled = new TradeDeduplicator(false, window, 1, clock);
+    }
+
+    /**
+     * @return the shard of the partition, created if the partition was consumed without an assignment callback
+     */
+    public TradeDeduplicator forPartition(String topic, int partition) {
+        if (!enabled) {
+            return disabled;
+        }
+        ThreadShards cached = threadShards.get();
+        int current = generation.get();
+        if (cached.generation != current) {
+            cached.clear(current);
+        }
+        TradeDeduplicator shard = cached.get(topic, partition);
+        if (shard == null) {
+            TopicPartition key = new TopicPartition(topic, partition);
+            shard = assigned.computeIfAbsent(key, this::take);
+            cached.put(topic, partition, shard);
+        }
+        return shard;
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        if (!enabled) {
+            return;
+        }
+        long expired = clock.millis() - window.toMillis();
+        parked.values().removeIf(p -> p.parkedAt < expired);
+        for (TopicPartition partition : partitions) {
+            assigned.computeIfAbsent(partition, this::take);
+        }
+        generation.incrementAndGet();
+        log.info("Dedup shards assigned for {}; {} held, {} parked", partitions, assigned.size(), parked.size());
+    }
+
+    @Override
+    public void onPartitionsRevokedAfterCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        if (!enabled) {
+            return;
+        }
+        long now = clock.millis();
+        for (TopicPartition partition : partitions) {
+            TradeDeduplicator shard = assigned.remove(partition);
+            if (shard != null) {
+                parked.put(partition, new Parked(shard, now));
+            }
+        }
+        generation.incrementAndGet();
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        // Another member may already own these and have published records this shard never saw.
+        for (TopicPartition partition : partitions) {
+            assigned.remove(partition);
+            parked.remove(partition);
+        }
+        generation.incrementAndGet();
+    }
+
+    int assignedCount() {
+        return assigned.size();
+    }
+
+    private TradeDeduplicator take(TopicPartition partition) {
+        Parked previous = parked.remove(partition);
+        if (previous != null && previous.parkedAt >= clock.millis() - window.toMillis()) {
+            return previous.shard;
+        }
+        return new TradeDeduplicator(true, window, capacity, clock);
+    }
+
+    private record Parked(TradeDeduplicator shard, long parkedAt) {
+    }
+
+    /** The shards one thread has looked up since the last rebalance, indexed by partition number per topic. */
+    private static final class ThreadShards {
+
+        final Map<String, TradeDeduplicator[]> byTopic = new HashMap<>();
+        int generation = -1;
+
+        TradeDeduplicator get(String topic, int partition) {
+            TradeDeduplicator[] shards = byTopic.get(topic);
+            return shards != null && partition < shards.length ? shards[partition] : null;
+        }
+
+        void put(String topic, int partition, TradeDeduplicator shard) {
+            TradeDeduplicator[] shards = byTopic.get(topic);
+            if (shards == null || partition >= shards.length) {
+                shards = Arrays.copyOf(shards != null ? shards : new TradeDeduplicator[0], Math.max(partition + 1, 8));
+                byTopic.put(topic, shards);
+            }
+            shards[partition] = shard;
+        }
+
+        void clear(int current) {
+            byTopic.clear();
+            generation = current;
+        }
+    }
+}
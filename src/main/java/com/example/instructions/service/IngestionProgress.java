@@ -0,0 +1,240 @@
+package com.example.instructions.service;
+
+import com.example.instructions.model.EntryCounts;
+import com.example.instructions.model.RejectionReason;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Live counters for one upload. The parser counts records read; pipeline workers and producer callbacks count
+ * the outcome of each one, so the counters can be read at any time while the upload is running.
+ * <p>
+ * It also serves as the upload's flush barrier: {@link #awaitSends} waits until every send issued for this
+ * upload has been acknowledged or has failed, without flushing or waiting on anyone else's records.
+ * <p>
+ * Records that do not reach the outbound topic are counted by {@link RejectionReason} and, when the upload has a
+ * {@link RejectsReport}, listed there with their line number.
+ * <p>
+ * For an archive, each file in it is counted by an {@link #entry} of the upload's progress, which adds every outcome
+ * to the upload's totals as well.
+ */
+public class IngestionProgress {
+
+    private final LongAdder read = new LongAdder();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder[] byReason = new LongAdder[RejectionReason.values().length];
+    private final AtomicLong pendingSends = new AtomicLong();
+    // Awaited by request threads, which may be virtual; Object.wait would pin their carrier on JDK 21.
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition sendsDone = lock.newCondition();
+    private final RejectsReport rejects;
+    private final IngestionProgress upload;
+    private final String entryName;
+    private final Queue<IngestionProgress> entries = new ConcurrentLinkedQueue<>();
+
+    public IngestionProgress() {
+        this(null);
+    }
+
+    public IngestionProgress(RejectsReport rejects) {
+        this(rejects, null, null);
+    }
+
+    private IngestionProgress(RejectsReport rejects, IngestionProgress upload, String entryName) {
+        this.rejects = rejects;
+        this.upload = upload;
+        this.entryName = entryName;
+        for (int i = 0; i < byReason.length; i++) {
+            byReason[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Progress of one file of an archive upload. Its outcomes count towards this upload too, and its rejected
+     * records are listed in this upload's report under {@code name}.
+     */
+    IngestionProgress entry(String name) {
+        IngestionProgress entry = new IngestionProgress(null, this, name);
+        entries.add(entry);
+        return entry;
+    }
+
+    void recordRead() {
+        read.increment();
+        if (upload != null) {
+            upload.recordRead();
+        }
+    }
+
+    void sendStarted() {
+        pendingSends.incrementAndGet();
+        if (upload != null) {
+            upload.sendStarted();
+        }
+    }
+
+    /** The broker acknowledged the outbound record. */
+    void recordPublished() {
+        published.increment();
+        sendDone();
+        if (upload != null) {
+            upload.recordPublished();
+        }
+    }
+
+    /** The trade starting on {@code line} was rejected, skipped or dropped and never sent. */
+    void recordRejected(long line, RejectionReason reason) {
+        rejected.increment();
+        byReason[reason.ordinal()].increment();
+        if (upload != null) {
+            upload.recordRejected(entryName, line, reason);
+        } else {
+            report(null, line, reason);
+        }
+    }
+
+    /** The outbound send of the trade starting on {@code line} failed. */
+    void recordFailed(long line) {
+        failed.increment();
+        byReason[RejectionReason.SEND_FAILED.ordinal()].increment();
+        sendDone();
+        if (upload != null) {
+            upload.recordFailed(entryName, line);
+        } else {
+            report(null, line, RejectionReason.SEND_FAILED);
+        }
+    }
+
+    private void recordRejected(String entry, long line, RejectionReason reason) {
+        rejected.increment();
+        byReason[reason.ordinal()].increment();
+        report(entry, line, reason);
+    }
+
+    private void recordFailed(String entry, long line) {
+        failed.increment();
+        byReason[RejectionReason.SEND_FAILED.ordinal()].increment();
+        sendDone();
+        report(entry, line, RejectionReason.SEND_FAILED);
+    }
+
+    private void report(String entry, long line, RejectionReason reason) {
+        if (rejects != null) {
+            rejects.write(entry, line, reason);
+        }
+    }
+
+    /** Completes the rejects report; called once no more outcomes are expected. */
+    void finish() {
+        if (rejects != null) {
+            rejects.close();
+        }
+    }
+
+    private void sendDone() {
+        if (pendingSends.decrementAndGet() == 0) {
+            lock.lock();
+            try {
+                sendsDone.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Blocks until no send of this upload is awaiting acknowledgement, or the timeout elapses.
+     *
+     * @return {@code true} if every send has completed
+     */
+    boolean awaitSends(Duration timeout) throws InterruptedException {
+        long remainingNanos = timeout.toNanos();
+        lock.lock();
+        try {
+            while (pendingSends.get() > 0) {
+                if (remainingNanos <= 0) {
+                    return false;
+                }
+                remainingNanos = sendsDone.awaitNanos(remainingNanos);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return true;
+    }
+
+    public long read() {
+        return read.sum();
+    }
+
+    public long published() {
+        return published.sum();
+    }
+
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    public long failed() {
+        return failed.sum();
+    }
+
+    /** Records that did not reach the outbound topic, by reason; reasons that did not occur are left out. */
+    public Map<RejectionReason, Long> rejections() {
+        Map<RejectionReason, Long> counts = new EnumMap<>(RejectionReason.class);
+        for (RejectionReason reason : RejectionReason.values()) {
+            long count = byReason[reason.ordinal()].sum();
+            if (count > 0) {
+                counts.put(reason, count);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * @return the file listing each record that did not reach the outbound topic, or {@code null} if there is none
+     */
+    public Path rejectsFile() {
+        return rejects != null ? rejects.path() : null;
+    }
+
+    /**
+     * @return the ID to download that file by from {@link RejectsReports}, or {@code null} if there is none
+     */
+    public String rejectsReportId() {
+        return rejects != null ? rejects.uploadId() : null;
+    }
+
+    /** Sends issued but not yet acknowledged or failed. */
+    public long pending() {
+        return pendingSends.get();
+    }
+
+    /** Records with a final outcome. */
+    public long completed() {
+        return published.sum() + rejected.sum() + failed.sum();
+    }
+
+    /** Counts per file of an archive upload, in the order the files were started; empty for any other upload. */
+    public List<EntryCounts> entries() {
+        List<EntryCounts> counts = new ArrayList<>();
+        for (IngestionProgress entry : entries) {
+            counts.add(new EntryCounts(entry.entryName, entry.read(), entry.published(), entry.rejected(),
+                    entry.failed()));
+        }
+        return counts;
+    }
+}
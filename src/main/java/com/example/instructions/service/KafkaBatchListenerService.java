@@ -0,0 +1,78 @@
+package com.example.instructions.service;
+
+import com.example.instructions.config.KafkaConsumerConfig;
+import com.example.instructions.model.CanonicalTrade;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Service;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Batch counterpart of {@link KafkaListenerService}, enabled with {@code app.kafka.listener.batch.enabled=true}.
+ * <p>
+ * Each poll is transformed and published as a whole, and the offsets are acknowledged only once every outbound
+ * send of the batch has been acknowledged. If a send fails, or the acknowledgements take longer than
+ * {@code trade.publish.ack-timeout}, the exception is left to the container's error handler, which redelivers the
+ * batch; once {@code app.kafka.listener.batch.retries} are used up, each record of the batch is published to the
+ * dead-letter topic before its offset is committed (at-least-once).
+ * <p>
+ * In exactly-once mode (see {@link com.example.instructions.config.KafkaTransactionConfig}) the container runs each
+ * call in a Kafka transaction: the sends and the acknowledged offsets are committed together after the method
+ * returns, and a failure aborts both, so consumers reading {@code read_committed} never see a batch twice.
+ */
+@Service
+@ConditionalOnProperty(name = "app.kafka.listener.batch.enabled", havingValue = "true")
+public class KafkaBatchListenerService {
+
+    private static final Logger log = LoggerFactory.getLogger(KafkaBatchListenerService.class);
+    private final TradeService tradeService;
+    private final Duration ackTimeout;
+
+    public KafkaBatchListenerService(TradeService tradeService,
+                                     @Value("${trade.publish.ack-timeout:2m}") Duration ackTimeout) {
+        this.tradeService = tradeService;
+        this.ackTimeout = ackTimeout;
+    }
+
+    @KafkaListener(topics = "${instructions.inbound.topic}",
+                   groupId = "${spring.kafka.consumer.group-id}",
+                   containerFactory = KafkaConsumerConfig.BATCH_LISTENER_CONTAINER_FACTORY)
+    public void consumeInboundBatch(List<ConsumerRecord<String, CanonicalTrade>> records,
+                                    Acknowledgment acknowledgment) {
+        List<ConsumerRecord<String, CanonicalTrade>> usable = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, CanonicalTrade> record : records) {
+            if (record.value() == null) {
+                log.warn("Received null or unparseable Kafka message at offset {}. Skipping.", record.offset());
+                continue;
+            }
+            usable.add(record);
+        }
+
+        log.info("Kafka Listener: Received batch of {} records ({} usable)", records.size(), usable.size());
+        try {
+            tradeService.processBatch(usable).get(ackTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for outbound acknowledgements.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Outbound send of batch failed.", e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Timed out after " + ackTimeout + " waiting for "
+                    + usable.size() + " outbound acknowledgements.", e);
+        }
+        acknowledgment.acknowledge();
+    }
+}
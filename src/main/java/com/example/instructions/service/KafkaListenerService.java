@@ -4,6 +4,7 @@ import com.example.instructions.model.CanonicalTrade;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
  
@@ -11,17 +12,21 @@ import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 
 @Service
+@ConditionalOnProperty(name = "app.kafka.listener.batch.enabled", havingValue = "false", matchIfMissing = true)
 public class KafkaListenerService {
 
     private static final Logger log = LoggerFactory.getLogger(KafkaListenerService.class);
     private final TradeService tradeService; 
+    private final TradeLogSampler logSampler;
 
-    public KafkaListenerService(TradeService tradeService) {
+    public KafkaListenerService(TradeService tradeService, TradeLogSampler logSampler) {
         this.tradeService = tradeService;
+        this.logSampler = logSampler;
     }
 
     @KafkaListener(topics = "${instructions.inbound.topic}", 
-                   groupId = "${spring.kafka.consumer.group-id}")
+                   groupId = "${spring.kafka.consumer.group-id}",
+                   concurrency = "${app.kafka.listener.concurrency:1}")
     public void consumeInboundInstructions(
         CanonicalTrade canonicalTrade,
         ConsumerRecord<?, ?> record, 
@@ -31,7 +36,9 @@ public class KafkaListenerService {
             return;
         }
 
-        log.info("Kafka Listener: Received Trade for Security ID: {}", canonicalTrade.getSecurityId());        
-        tradeService.processTrade(canonicalTrade); 
+        if (logSampler.sample(TradeLogSampler.Event.RECEIVED) && log.isInfoEnabled()) {
+            log.info("Kafka Listener: Received Trade for Security ID: {}", canonicalTrade.getSecurityId());
+        }
+        tradeService.processTrade(canonicalTrade, record);
     }
 }
\ No newline at end of file
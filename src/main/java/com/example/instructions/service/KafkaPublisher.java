@@ -1,6 +1,10 @@
 package com.example.instructions.service;
 
-import com.example.instructions.model.PlatformTrade.PlatformTradeWrapper;
+import com.example.instructions.config.PayloadFormat;
+import com.example.instructions.model.RejectionReason;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.apache.kafka.common.header.internals.RecordHeaders;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -8,32 +12,98 @@ import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
 
+/**
+ * Sends outbound trades through the shared producer with at most {@code trade.publish.max-in-flight} records
+ * awaiting acknowledgement. A caller that would exceed the window blocks until acks free a slot, so a fast upload
+ * slows down to the broker's pace instead of filling the producer buffer, while the window is large enough for
+ * {@code linger.ms} and {@code batch.size} to produce full batches.
+ * <p>
+ * Payloads are encoded in {@code trade.publish.encoding} by the caller (see {@link #encoding()}); every record
+ * names that format in its {@link PayloadFormat#HEADER} header.
+ */
 @Service
 public class KafkaPublisher {
 
     private static final Logger log = LoggerFactory.getLogger(KafkaPublisher.class);
 
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final TradeMetrics metrics;
+    private final TradeLogSampler logSampler;
+    private final Semaphore inFlight;
 
+    // Set by the active profile; the default only serves publishers built outside the application context.
     @Value("${app.kafka.topic.outbound}")
-    private String outboundTopic;
+    private String outboundTopic = "instructions.outbound";
 
-    public KafkaPublisher(KafkaTemplate<String, Object> kafkaTemplate) {
+    @Value("${trade.publish.encoding:json}")
+    private PayloadFormat encoding = PayloadFormat.JSON;
+
+    public KafkaPublisher(KafkaTemplate<String, byte[]> kafkaTemplate, TradeMetrics metrics, TradeLogSampler logSampler,
+                          @Value("${trade.publish.max-in-flight:20000}") int maxInFlight) {
         this.kafkaTemplate = kafkaTemplate;
+        this.metrics = metrics;
+        this.logSampler = logSampler;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    /** The format payloads handed to {@link #publish} must be encoded in. */
+    public PayloadFormat encoding() {
+        return encoding;
     }
-    
-    public void publish(PlatformTradeWrapper tradeWrapper) {
-        String key = tradeWrapper.getTrade().getSecurity();               
-        CompletableFuture<SendResult<String, Object>> future = kafkaTemplate.send(outboundTopic, key, tradeWrapper);        
+
+    /**
+     * Sends an already encoded trade keyed by security ID. The payload is handed to the producer unchanged,
+     * so it is not serialized a second time. The returned future completes when the broker acknowledges
+     * the record, or exceptionally if the send fails, including when the producer rejects it up front;
+     * callers that do not need the acknowledgement may ignore it. Blocks while the in-flight window is full.
+     *
+     * @param originMillis epoch millis the trade entered the service, for end-to-end latency; negative if unknown
+     */
+    public CompletableFuture<SendResult<String, byte[]>> publish(String key, byte[] payload, long originMillis) {
+        return publish(outboundTopic, key, payload, originMillis);
+    }
+
+    /**
+     * Same as {@link #publish(String, byte[], long)} to {@code topic} instead of {@code app.kafka.topic.outbound}.
+     * All topics share the in-flight window.
+     */
+    public CompletableFuture<SendResult<String, byte[]>> publish(String topic, String key, byte[] payload,
+                                                                 long originMillis) {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            metrics.reject(RejectionReason.SEND_FAILED);
+            return CompletableFuture.failedFuture(e);
+        }
+
+        long startNanos = System.nanoTime();
+        metrics.sendStarted();
+        CompletableFuture<SendResult<String, byte[]>> future;
+        try {
+            future = kafkaTemplate.send(new ProducerRecord<>(topic, null, key, payload, new RecordHeaders(
+                    List.of(new RecordHeader(PayloadFormat.HEADER, encoding.headerValue())))));
+        } catch (RuntimeException e) {
+            // e.g. metadata or buffer timeout: report it like an asynchronous failure
+            future = CompletableFuture.failedFuture(e);
+        }
         future.whenComplete((result, ex) -> {
-            if (ex == null) {                
-                log.info("Successfully published trade with key '{}' to topic {}. Offset: {}", 
-                         key, outboundTopic, result.getRecordMetadata().offset());
-            } else {                
+            inFlight.release();
+            metrics.sendCompleted(startNanos, originMillis, ex == null);
+            if (ex == null) {
+                if (logSampler.sample(TradeLogSampler.Event.PUBLISHED) && log.isInfoEnabled()) {
+                    log.info("Successfully published trade with key '{}' to topic {}. Offset: {}",
+                             key, topic, result.getRecordMetadata().offset());
+                }
+            } else {
+                logSampler.sample(TradeLogSampler.Event.FAILED);
                 log.error("Failed to publish trade with key '{}' to Kafka: {}", key, ex.getMessage());
             }
         });
+        return future;
     }
 }
\ No newline at end of file
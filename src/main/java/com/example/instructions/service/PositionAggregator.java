@@ -0,0 +1,180 @@
+package com.example.instructions.service;
+
+import com.example.instructions.model.Position;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Net quantity and notional per security and per account, kept up to date as the broker acknowledges each
+ * published trade, so downstream consumers need not recompute them from the outbound topic.
+ * <p>
+ * Recording a trade is two map lookups and a compare-and-set per total of each key. Notional is kept in fixed point
+ * with {@value #NOTIONAL_SCALE} decimals. A total that would pass the range of a long spills into a
+ * {@link BigInteger} instead of wrapping; only that rare add takes the key's lock, so positions stay exact however
+ * large the trades or their sum. A single key is read live in constant time; the full set is served from a snapshot
+ * rebuilt every {@code trade.positions.snapshot-interval}, so listing costs the same however many trades have gone
+ * through.
+ */
+@Component
+public class PositionAggregator {
+
+    static final int NOTIONAL_SCALE = 4;
+
+    private final Clock clock;
+    private final ConcurrentHashMap<String, Totals> bySecurity = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Totals> byAccount = new ConcurrentHashMap<>();
+    private volatile Snapshot snapshot;
+
+    @Autowired
+    public PositionAggregator() {
+        this(Clock.systemUTC());
+    }
+
+    PositionAggregator(Clock clock) {
+        this.clock = clock;
+        this.snapshot = new Snapshot(clock.instant(), Map.of(), Map.of());
+    }
+
+    /**
+     * @param security normalized security ID
+     * @param type     normalized trade type: {@code B}, {@code S}, or anything else for a trade that moves no position
+     */
+    public void record(String security, String account, String type, Long quantity, BigDecimal amount) {
+        int sign = "B".equals(type) ? 1 : "S".equals(type) ? -1 : 0;
+        long unsignedQuantity = quantity != null ? quantity : 0;
+        BigInteger unscaledNotional = amount != null && sign != 0
+                ? amount.setScale(NOTIONAL_SCALE, RoundingMode.HALF_EVEN).unscaledValue()
+                : BigInteger.ZERO;
+        if (security != null) {
+            totals(bySecurity, security).add(sign, unsignedQuantity, unscaledNotional);
+        }
+        if (account != null) {
+            totals(byAccount, account).add(sign, unsignedQuantity, unscaledNotional);
+        }
+    }
+
+    /** @return the live position, or {@code null} if no trade in the security has been published */
+    public Position security(String securityId) {
+        Totals totals = bySecurity.get(securityId.toUpperCase(Locale.ROOT));
+        return totals != null ? totals.toPosition(securityId.toUpperCase(Locale.ROOT)) : null;
+    }
+
+    /** @return the live position, or {@code null} if no trade for the account has been published */
+    public Position account(String accountNumber) {
+        Totals totals = byAccount.get(accountNumber);
+        return totals != null ? totals.toPosition(accountNumber) : null;
+    }
+
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    @Scheduled(fixedRateString = "${trade.positions.snapshot-interval:10s}")
+    public void refreshSnapshot() {
+        snapshot = new Snapshot(clock.instant(), copy(bySecurity), copy(byAccount));
+    }
+
+    private static Totals totals(ConcurrentHashMap<String, Totals> map, String key) {
+        Totals totals = map.get(key);
+        return totals != null ? totals : map.computeIfAbsent(key, k -> new Totals());
+    }
+
+    private static Map<String, Position> copy(ConcurrentHashMap<String, Totals> map) {
+        Map<String, Position> copy = new HashMap<>(Math.max(16, map.size() * 4 / 3 + 1));
+        map.forEach((key, totals) -> copy.put(key, totals.toPosition(key)));
+        return Collections.unmodifiableMap(copy);
+    }
+
+    /**
+     * All positions as of {@code takenAt}. Totals are read without stopping writers, so a trade acknowledged while
+     * the snapshot was being taken may be counted in some totals and not yet in others.
+     */
+    public record Snapshot(Instant takenAt, Map<String, Position> securities, Map<String, Position> accounts) {
+    }
+
+    private static final class Totals {
+
+        final LongAdder trades = new LongAdder();
+        final Sum netQuantity = new Sum();
+        final Sum netNotional = new Sum();
+
+        void add(int sign, long quantity, BigInteger notional) {
+            trades.increment();
+            if (sign != 0) {
+                netQuantity.add(sign, quantity);
+                netNotional.add(sign, notional);
+            }
+        }
+
+        Position toPosition(String key) {
+            return new Position(key, trades.sum(), netQuantity.sum(), new BigDecimal(netNotional.sum(), NOTIONAL_SCALE));
+        }
+    }
+
+    /**
+     * A total kept in a long while it fits. The add that would overflow the long, or a value that does not fit one,
+     * moves the total into {@code spilled} under the lock and starts the long again from zero.
+     */
+    static final class Sum {
+
+        private final AtomicLong value = new AtomicLong();
+        private BigInteger spilled = BigInteger.ZERO; // guarded by this
+
+        void add(int sign, long delta) {
+            if (sign < 0 && delta == Long.MIN_VALUE) {
+                spill(BigInteger.valueOf(delta).negate());
+            } else {
+                add(sign * delta);
+            }
+        }
+
+        void add(int sign, BigInteger delta) {
+            if (delta.bitLength() < Long.SIZE) {
+                add(sign, delta.longValueExact());
+            } else {
+                spill(sign < 0 ? delta.negate() : delta);
+            }
+        }
+
+        private void add(long delta) {
+            while (true) {
+                long current = value.get();
+                long next = current + delta;
+                if (((current ^ next) & (delta ^ next)) < 0) {
+                    // Overflow: both operands have the sign the result lacks.
+                    synchronized (this) {
+                        if (value.compareAndSet(current, 0)) {
+                            spilled = spilled.add(BigInteger.valueOf(current)).add(BigInteger.valueOf(delta));
+                            return;
+                        }
+                    }
+                } else if (value.compareAndSet(current, next)) {
+                    return;
+                }
+            }
+        }
+
+        private synchronized void spill(BigInteger delta) {
+            spilled = spilled.add(delta);
+        }
+
+        /** Holding the lock keeps a concurrent overflow from moving the long into {@code spilled} mid-read. */
+        synchronized BigInteger sum() {
+            return spilled.add(BigInteger.valueOf(value.get()));
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.instructions.service;
+
+import com.example.instructions.model.RejectionReason;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The records of one upload that did not reach the outbound topic, streamed to a CSV file of {@code line,reason}
+ * rows. The file is created on the first entry, so a clean upload leaves nothing behind. Pipeline workers append
+ * concurrently, so rows are in completion order rather than file order; {@code line} is the line of the input file
+ * on which the record starts. For an archive the rows are {@code entry,line,reason}, naming the file in the archive.
+ * Reports are created and looked up through {@link RejectsReports}. The file is complete only once the report is
+ * closed. A record rejected after that, such as a send that fails after the upload stopped waiting for it, is still
+ * counted by the upload's progress. It is not listed in the file: it is logged and counted as a late reject instead.
+ */
+public class RejectsReport {
+
+    private static final Logger log = LoggerFactory.getLogger(RejectsReport.class);
+
+    private final String uploadId;
+    private final Path path;
+    private final Runnable onClose;
+    private BufferedWriter writer;
+    private boolean closed;
+    private boolean failed;
+    private long lateRejects;
+
+    RejectsReport(String uploadId, Path path) {
+        this(uploadId, path, () -> { });
+    }
+
+    RejectsReport(String uploadId, Path path, Runnable onClose) {
+        this.uploadId = uploadId;
+        this.path = path;
+        this.onClose = onClose;
+    }
+
+    /**
+     * @param entry the file within the archive, or {@code null} if the upload is not an archive
+     */
+    synchronized void write(String entry, long line, RejectionReason reason) {
+        if (closed) {
+            if (lateRejects++ == 0) {
+                log.warn("Upload {} rejected line {} ({}) after its rejects report was completed; late rejects are "
+                        + "counted but not listed", uploadId, line, reason);
+            }
+            return;
+        }
+        if (failed) {
+            return;
+        }
+        try {
+            if (writer == null) {
+                Files.createDirectories(path.getParent());
+                writer = Files.newBufferedWriter(path);
+                writer.write(entry != null ? "entry,line,reason\n" : "line,reason\n");
+            }
+            if (entry != null) {
+                writeField(entry);
+                writer.write(',');
+            }
+            writer.write(Long.toString(line));
+            writer.write(',');
+            writer.write(reason.name());
+            writer.write('\n');
+        } catch (IOException e) {
+            // The counts in the upload response stay correct; only the per-line detail is lost.
+            log.warn("Could not write rejects report {}, no further rejects are recorded: {}", path, e.getMessage());
+            failed = true;
+            closeWriter();
+        }
+    }
+
+    private void writeField(String value) throws IOException {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    /**
+     * @return the ID to fetch the report by, or {@code null} if no record has been rejected
+     */
+    public synchronized String uploadId() {
+        return writer != null ? uploadId : null;
+    }
+
+    /**
+     * @return the report file, or {@code null} if no record has been rejected
+     */
+    public synchronized Path path() {
+        return writer != null ? path : null;
+    }
+
+    /**
+     * @return the records rejected after the report was closed, which the file does not list
+     */
+    public synchronized long lateRejects() {
+        return lateRejects;
+    }
+
+    void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            closeWriter();
+        }
+        onClose.run();
+    }
+
+    private void closeWriter() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                log.warn("Could not close rejects report {}: {}", path, e.getMessage());
+            }
+        }
+    }
+}
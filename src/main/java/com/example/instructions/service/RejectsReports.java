@@ -0,0 +1,115 @@
+package com.example.instructions.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@link RejectsReport} files of recent uploads, kept as {@code <upload id>.rejects.csv} under
+ * {@code trade.upload.rejects-directory}. Clients fetch a report by its upload ID and never see the file itself;
+ * while its upload is still running the report is incomplete and {@link #isWriting} tells so.
+ * Every {@code trade.upload.rejects-cleanup-interval} the reports last written more than
+ * {@code trade.upload.rejects-retention} ago are deleted.
+ */
+@Component
+public class RejectsReports {
+
+    private static final Logger log = LoggerFactory.getLogger(RejectsReports.class);
+    private static final String SUFFIX = ".rejects.csv";
+
+    private final Path directory;
+    private final Duration retention;
+    private final Clock clock;
+    private final Set<String> writing = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public RejectsReports(@Value("${trade.upload.rejects-directory:${java.io.tmpdir}/trade-rejects}") Path directory,
+                          @Value("${trade.upload.rejects-retention:24h}") Duration retention) {
+        this(directory, retention, Clock.systemUTC());
+    }
+
+    RejectsReports(Path directory, Duration retention, Clock clock) {
+        this.directory = directory;
+        this.retention = retention;
+        this.clock = clock;
+    }
+
+    /** A report for a new upload; its file is created on the first rejected record. */
+    RejectsReport newReport(String uploadId) {
+        writing.add(uploadId);
+        return new RejectsReport(uploadId, directory.resolve(uploadId + SUFFIX), () -> writing.remove(uploadId));
+    }
+
+    /**
+     * @return whether the upload is still running, so that its report may still gain rows
+     */
+    public boolean isWriting(String uploadId) {
+        return writing.contains(uploadId);
+    }
+
+    /**
+     * @return the report file of the upload, or {@code null} if it had no rejects, has expired, or the ID is not
+     *         one this service hands out
+     */
+    public Path find(String uploadId) {
+        if (!isUploadId(uploadId)) {
+            return null;
+        }
+        Path report = directory.resolve(uploadId + SUFFIX);
+        return Files.isRegularFile(report) ? report : null;
+    }
+
+    private static boolean isUploadId(String uploadId) {
+        try {
+            // Also keeps anything that could step out of the directory from reaching resolve.
+            return UUID.fromString(uploadId).toString().equals(uploadId);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return the number of reports deleted
+     */
+    @Scheduled(fixedRateString = "${trade.upload.rejects-cleanup-interval:10m}",
+            initialDelayString = "${trade.upload.rejects-cleanup-interval:10m}")
+    public int deleteExpired() {
+        Instant cutoff = clock.instant().minus(retention);
+        int deleted = 0;
+        try (DirectoryStream<Path> reports = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path report : reports) {
+                try {
+                    if (Files.getLastModifiedTime(report).toInstant().isBefore(cutoff) && Files.deleteIfExists(report)) {
+                        deleted++;
+                    }
+                } catch (IOException e) {
+                    log.warn("Could not delete rejects report {}: {}", report, e.getMessage());
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // No upload has had a rejected record yet.
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not list rejects reports in " + directory, e);
+        }
+        if (deleted > 0) {
+            log.info("Deleted {} rejects reports older than {}", deleted, retention);
+        }
+        return deleted;
+    }
+}
@@ -0,0 +1,362 @@
+package com.example.instructions.service;
+
+import com.example.instructions.model.AuditRecord;
+import com.example.instructions.model.CanonicalTrade;
+import com.example.instructions.model.CompactTrade;
+import com.example.instructions.util.SecurityDictionary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Append-only, in-memory audit trail of every trade accepted for processing.
+ * <p>
+ * Entries go into fixed-capacity segments that each cover a bounded span of time. A segment is closed when it
+ * is full or older than {@code segment-duration}. Retention works on whole segments: once a segment is past the
+ * retention window, or the log is over its entry cap, the oldest segment is dropped together with its indexes.
+ * Each segment indexes its own entries by account number and security ID, and entries within a segment are
+ * ordered by record time, so time-range queries can skip whole segments and binary-search inside the rest.
+ * Trades are retained as {@link CompactTrade}s and expanded again only for the entries a query returns.
+ * <p>
+ * The log is split into {@code shards}, each with its own segments and lock. A thread always records into the
+ * shard it was handed on its first record, round robin, so consumer threads and pipeline workers each append under
+ * a lock no other recording thread takes while there are at least as many shards as such threads. A query reads
+ * the shards one after another and merges their entries by record time. Each shard holds at most its share of
+ * {@code max-entries}, counting its open segment as full, so the log never holds more than {@code max-entries}, or
+ * {@code shards * segment-capacity} when that is larger. Expired segments are dropped every
+ * {@code segment-duration} from every shard, including shards no thread records into any more.
+ */
+@Component
+public class TradeAuditLog {
+
+    /**
+     * Heap cost of one retained entry with compressed oops: the CompactTrade with its account string, its segment
+     * slot and both index postings. {@code CompactTradeBenchmark} prints the figure measured with JOL.
+     */
+    static final long ESTIMATED_BYTES_PER_ENTRY = 240;
+
+    private final Clock clock;
+    private final SecurityDictionary dictionary;
+    private final long retentionMillis;
+    private final long maxShardEntries;
+    private final int segmentCapacity;
+    private final long segmentDurationMillis;
+
+    private final Shard[] shards;
+    private final AtomicInteger nextShard = new AtomicInteger();
+    private final ThreadLocal<Shard> threadShard;
+
+    @Autowired
+    public TradeAuditLog(@Value("${trade.audit.retention:24h}") Duration retention,
+                         @Value("${trade.audit.max-entries:2000000}") long maxEntries,
+                         @Value("${trade.audit.segment-capacity:65536}") int segmentCapacity,
+                         @Value("${trade.audit.segment-duration:5m}") Duration segmentDuration,
+                         @Value("${trade.audit.shards:0}") int shards,
+                         SecurityDictionary dictionary) {
+        this(retention, maxEntries, segmentCapacity, segmentDuration, shards, dictionary, Clock.systemUTC());
+    }
+
+    TradeAuditLog(Duration retention, long maxEntries, int segmentCapacity, Duration segmentDuration, int shards,
+                  SecurityDictionary dictionary, Clock clock) {
+        this.retentionMillis = retention.toMillis();
+        this.segmentCapacity = segmentCapacity;
+        this.segmentDurationMillis = segmentDuration.toMillis();
+        this.dictionary = dictionary;
+        this.clock = clock;
+        Shard[] parts = new Shard[shards > 0 ? shards : Runtime.getRuntime().availableProcessors()];
+        for (int i = 0; i < parts.length; i++) {
+            parts[i] = new Shard();
+        }
+        this.shards = parts;
+        this.maxShardEntries = Math.ceilDiv(maxEntries, parts.length);
+        this.threadShard = ThreadLocal.withInitial(
+                () -> parts[Math.floorMod(nextShard.getAndIncrement(), parts.length)]);
+    }
+
+    public void record(CanonicalTrade trade) {
+        threadShard.get().record(CompactTrade.from(trade, dictionary));
+    }
+
+    /**
+     * Returns matching entries newest first. Every criterion is optional; {@code from} and {@code to} are
+     * inclusive bounds on the time the trade was recorded.
+     */
+    public List<AuditRecord> query(String accountNumber, String securityId, Instant from, Instant to, int limit) {
+        long fromMillis = from != null ? from.toEpochMilli() : Long.MIN_VALUE;
+        long toMillis = to != null ? to.toEpochMilli() : Long.MAX_VALUE;
+        String securityKey = securityId != null ? securityId.toUpperCase() : null;
+
+        long cutoff = clock.millis() - retentionMillis;
+        List<AuditRecord> result = new ArrayList<>(Math.min(limit, 256));
+        for (Shard shard : shards) {
+            shard.collect(accountNumber, securityKey, Math.max(fromMillis, cutoff), toMillis, limit, result);
+        }
+        if (shards.length > 1) {
+            // Each shard's entries are newest first; merge them and keep the newest limit of all.
+            result.sort(Comparator.comparing(AuditRecord::recordedAt).reversed());
+            if (result.size() > limit) {
+                result.subList(limit, result.size()).clear();
+            }
+        }
+        return result;
+    }
+
+    /** Drops the segments past the retention window from every shard, whether or not it is still recorded into. */
+    @Scheduled(fixedRateString = "${trade.audit.segment-duration:5m}",
+            initialDelayString = "${trade.audit.segment-duration:5m}")
+    public void evictExpired() {
+        long now = clock.millis();
+        for (Shard shard : shards) {
+            shard.lock.writeLock().lock();
+            try {
+                shard.evict(now);
+            } finally {
+                shard.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    public Stats stats() {
+        long now = clock.millis();
+        long retained = 0;
+        int segments = 0;
+        long evictedEntries = 0;
+        long evictedSegments = 0;
+        Instant oldestRecordedAt = null;
+        for (Shard shard : shards) {
+            shard.lock.writeLock().lock();
+            try {
+                shard.evict(now);
+                retained += shard.retained;
+                segments += shard.segments.size();
+                evictedEntries += shard.evictedEntries;
+                evictedSegments += shard.evictedSegments;
+                Segment oldest = shard.segments.peekFirst();
+                if (oldest != null
+                        && (oldestRecordedAt == null || oldest.startMillis < oldestRecordedAt.toEpochMilli())) {
+                    oldestRecordedAt = Instant.ofEpochMilli(oldest.startMillis);
+                }
+            } finally {
+                shard.lock.writeLock().unlock();
+            }
+        }
+        return new Stats(retained, segments, evictedEntries, evictedSegments, oldestRecordedAt,
+                ESTIMATED_BYTES_PER_ENTRY, retained * ESTIMATED_BYTES_PER_ENTRY);
+    }
+
+    public record Stats(long retainedEntries, int segments, long evictedEntries, long evictedSegments,
+                        Instant oldestRecordedAt, long estimatedBytesPerEntry, long estimatedBytes) {
+    }
+
+    private final class Shard {
+
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        final ArrayDeque<Segment> segments = new ArrayDeque<>();
+        long retained;
+        long evictedEntries;
+        long evictedSegments;
+        long lastRecordedAt;
+
+        void record(CompactTrade trade) {
+            lock.writeLock().lock();
+            try {
+                // Keep record times monotonic within the shard even if the wall clock steps back.
+                long now = Math.max(clock.millis(), lastRecordedAt);
+                lastRecordedAt = now;
+
+                Segment head = segments.peekLast();
+                boolean rolled = head == null || head.size == head.capacity
+                        || now - head.startMillis >= segmentDurationMillis;
+                if (rolled) {
+                    head = new Segment(now, segmentCapacity);
+                    segments.addLast(head);
+                }
+                head.append(now, trade);
+                retained++;
+                if (rolled) {
+                    // Eviction works on whole segments, so checking once per segment is enough.
+                    evict(now);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void collect(String accountNumber, String securityKey, long fromMillis, long toMillis, int limit,
+                     List<AuditRecord> out) {
+            int end = out.size() + limit;
+            lock.readLock().lock();
+            try {
+                Iterator<Segment> it = segments.descendingIterator();
+                while (it.hasNext() && out.size() < end) {
+                    Segment segment = it.next();
+                    if (segment.lastMillis() < fromMillis) {
+                        break;
+                    }
+                    if (segment.startMillis > toMillis) {
+                        continue;
+                    }
+                    segment.collect(accountNumber, securityKey, fromMillis, toMillis, end, out);
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /** Caller holds the write lock. */
+        void evict(long now) {
+            long cutoff = now - retentionMillis;
+            while (!segments.isEmpty()) {
+                Segment oldest = segments.peekFirst();
+                boolean expired = oldest.lastMillis() < cutoff;
+                // The open segment counts as full, so the shard stays within its share until the next roll.
+                boolean overCap = segments.size() > 1
+                        && retained - segments.peekLast().size + segmentCapacity > maxShardEntries;
+                if (!expired && !overCap) {
+                    break;
+                }
+                segments.pollFirst();
+                retained -= oldest.size;
+                evictedEntries += oldest.size;
+                evictedSegments++;
+            }
+        }
+    }
+
+    private final class Segment {
+
+        final long startMillis;
+        final int capacity;
+        long[] recordedAt;
+        CompactTrade[] trades;
+        final Map<String, IntList> byAccount = new HashMap<>();
+        final Map<String, IntList> bySecurity = new HashMap<>();
+        int size;
+
+        Segment(long startMillis, int capacity) {
+            // Start small so that quiet periods do not pin full-size arrays for every time-rolled segment.
+            int initial = Math.min(capacity, 256);
+            this.startMillis = startMillis;
+            this.capacity = capacity;
+            this.recordedAt = new long[initial];
+            this.trades = new CompactTrade[initial];
+        }
+
+        long lastMillis() {
+            return size == 0 ? startMillis : recordedAt[size - 1];
+        }
+
+        void append(long now, CompactTrade trade) {
+            if (size == trades.length) {
+                int grown = Math.min(size * 2, capacity);
+                recordedAt = Arrays.copyOf(recordedAt, grown);
+                trades = Arrays.copyOf(trades, grown);
+            }
+            int slot = size++;
+            recordedAt[slot] = now;
+            trades[slot] = trade;
+            if (trade.getAccountNumber() != null) {
+                byAccount.computeIfAbsent(trade.getAccountNumber(), k -> new IntList()).add(slot);
+            }
+            String security = trade.getSecurityId(dictionary);
+            if (security != null) {
+                bySecurity.computeIfAbsent(security.toUpperCase(), k -> new IntList()).add(slot);
+            }
+        }
+
+        void collect(String accountNumber, String securityKey, long fromMillis, long toMillis, int limit,
+                     List<AuditRecord> out) {
+            IntList candidates = null;
+            if (accountNumber != null) {
+                candidates = byAccount.get(accountNumber);
+                if (candidates == null) {
+                    return;
+                }
+            }
+            if (securityKey != null) {
+                IntList bySec = bySecurity.get(securityKey);
+                if (bySec == null) {
+                    return;
+                }
+                if (candidates == null || bySec.size < candidates.size) {
+                    candidates = bySec;
+                }
+            }
+
+            if (candidates == null) {
+                // Pure time-range scan: the slots are sorted by record time.
+                int upper = upperBound(toMillis);
+                for (int i = upper - 1; i >= 0 && recordedAt[i] >= fromMillis && out.size() < limit; i--) {
+                    out.add(toRecord(i));
+                }
+                return;
+            }
+
+            for (int c = candidates.size - 1; c >= 0 && out.size() < limit; c--) {
+                int i = candidates.values[c];
+                long at = recordedAt[i];
+                if (at > toMillis) {
+                    continue;
+                }
+                if (at < fromMillis) {
+                    break;
+                }
+                CompactTrade trade = trades[i];
+                if (accountNumber != null && !accountNumber.equals(trade.getAccountNumber())) {
+                    continue;
+                }
+                String security = trade.getSecurityId(dictionary);
+                if (securityKey != null && (security == null || !securityKey.equals(security.toUpperCase()))) {
+                    continue;
+                }
+                out.add(toRecord(i));
+            }
+        }
+
+        private int upperBound(long toMillis) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (recordedAt[mid] <= toMillis) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        private AuditRecord toRecord(int slot) {
+            return new AuditRecord(Instant.ofEpochMilli(recordedAt[slot]), trades[slot].toCanonicalTrade(dictionary));
+        }
+    }
+
+    private static final class IntList {
+
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
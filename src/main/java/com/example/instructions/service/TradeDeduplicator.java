@@ -0,0 +1,266 @@
+package com.example.instructions.service;
+
+import com.example.instructions.model.CanonicalTrade;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Idempotency check for inbound trades, enabled with {@code trade.dedup.enabled=true}.
+ * <p>
+ * Each trade is reduced to a 64-bit fingerprint of its canonical fields. A fingerprint seen less than
+ * {@code trade.dedup.window} ago is a duplicate. Two structures, both allocated up front, hold the fingerprints:
+ * <ul>
+ *   <li>a blocked Bloom filter (one 64-bit word per lookup) in two generations rotated once per window, which
+ *       answers most lookups for new trades without touching the table below;</li>
+ *   <li>an exact table of the last {@code trade.dedup.capacity} fingerprints with their first-seen time: a ring
+ *       buffer in arrival order, which makes expiry and eviction oldest-first, indexed by an open-addressing
+ *       hash table.</li>
+ * </ul>
+ * Memory is about 30 bytes per entry of capacity regardless of traffic. When traffic exceeds the capacity within
+ * one window, the oldest fingerprints are forgotten early and a late duplicate is let through, never the reverse.
+ */
+@Component
+public class TradeDeduplicator {
+
+    private static final int BLOOM_BITS_PER_ENTRY = 10;
+    private static final int BLOOM_HASHES = 6;
+    private static final long FORGOTTEN = -1;
+
+    private final boolean enabled;
+    private final long windowMillis;
+    private final Clock clock;
+
+    /** Fingerprint at {@code 2 * position}, first-seen millis next to it, so a probe touches one cache line. */
+    private final long[] ring;
+    private final int capacity;
+    private final int[] index;
+    private final int indexMask;
+    private int head;
+    private int size;
+
+    private long[] bloomCurrent;
+    private long[] bloomPrevious;
+    private final int bloomMask;
+    private long bloomRotateAt;
+
+    @Autowired
+    public TradeDeduplicator(@Value("${trade.dedup.enabled:false}") boolean enabled,
+                             @Value("${trade.dedup.window:10m}") Duration window,
+                             @Value("${trade.dedup.capacity:1000000}") int capacity) {
+        this(enabled, window, capacity, Clock.systemUTC());
+    }
+
+    TradeDeduplicator(boolean enabled, Duration window, int capacity, Clock clock) {
+        this.enabled = enabled;
+        this.windowMillis = window.toMillis();
+        this.clock = clock;
+        int entries = enabled ? capacity : 1;
+
+        this.capacity = entries;
+        ring = new long[entries * 2];
+        index = new int[Integer.highestOneBit(Math.max(2, entries) * 2 - 1) * 2];
+        indexMask = index.length - 1;
+
+        int bloomWords = Integer.highestOneBit(Math.max(1, (int) ((long) entries * BLOOM_BITS_PER_ENTRY / 64)) * 2 - 1);
+        bloomCurrent = new long[Math.max(1, bloomWords)];
+        bloomPrevious = new long[bloomCurrent.length];
+        bloomMask = bloomCurrent.length - 1;
+        bloomRotateAt = clock.millis() + windowMillis;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Records the fingerprint and reports whether it is new within the window. Always {@code true} when disabled.
+     */
+    public synchronized boolean firstSeen(long fingerprint) {
+        if (!enabled) {
+            return true;
+        }
+        long now = clock.millis();
+        expire(now);
+        if (mightContain(fingerprint) && find(fingerprint) >= 0) {
+            return false;
+        }
+        insert(fingerprint, now);
+        return true;
+    }
+
+    /**
+     * Drops a fingerprint recorded by {@link #firstSeen}, so that a trade whose publish failed is not treated as
+     * a duplicate when it is delivered again.
+     */
+    public synchronized void forget(long fingerprint) {
+        if (!enabled) {
+            return;
+        }
+        int slot = find(fingerprint);
+        if (slot >= 0) {
+            int position = index[slot] - 1;
+            ring[2 * position + 1] = FORGOTTEN;
+            removeSlot(slot);
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * 64-bit hash over every canonical field; nothing is allocated.
+     */
+    public static long fingerprint(CanonicalTrade trade) {
+        long h = 0x9E3779B97F4A7C15L;
+        h = mix(h, trade.getAccountNumber());
+        h = mix(h, trade.getSecurityId());
+        h = mix(h, trade.getTradeType());
+        h = mix(h, trade.getQuantity() != null ? trade.getQuantity() : 0x5BD1E995L, trade.getQuantity() != null);
+        h = mix(h, trade.getPrice());
+        h = mix(h, trade.getAmount());
+        LocalDateTime timestamp = trade.getTimestamp();
+        if (timestamp != null) {
+            h = mix(h, timestamp.toEpochSecond(ZoneOffset.UTC), true);
+            h = mix(h, timestamp.getNano(), true);
+        } else {
+            h = mix(h, 0, false);
+        }
+        return h;
+    }
+
+    private static long mix(long h, String value) {
+        if (value == null) {
+            return mix(h, 0, false);
+        }
+        long v = value.length();
+        for (int i = 0; i < value.length(); i++) {
+            v = v * 0x100000001B3L + value.charAt(i);
+        }
+        return mix(h, v, true);
+    }
+
+    private static long mix(long h, BigDecimal value) {
+        if (value == null) {
+            return mix(h, 0, false);
+        }
+        return mix(mix(h, value.hashCode(), true), value.scale(), true);
+    }
+
+    private static long mix(long h, long value, boolean present) {
+        h ^= present ? value : 0xC2B2AE3D27D4EB4FL;
+        h *= 0xBF58476D1CE4E5B9L;
+        h ^= h >>> 31;
+        h *= 0x94D049BB133111EBL;
+        return h ^ (h >>> 29);
+    }
+
+    private void expire(long now) {
+        if (now >= bloomRotateAt) {
+            long[] cleared = bloomPrevious;
+            Arrays.fill(cleared, 0);
+            bloomPrevious = bloomCurrent;
+            bloomCurrent = cleared;
+            bloomRotateAt = now + windowMillis;
+        }
+        long cutoff = now - windowMillis;
+        while (size > 0 && ring[2 * head + 1] < cutoff) {
+            evictOldest();
+        }
+    }
+
+    private void insert(long fingerprint, long now) {
+        if (size == capacity) {
+            evictOldest();
+        }
+        int position = (head + size) % capacity;
+        ring[2 * position] = fingerprint;
+        ring[2 * position + 1] = now;
+        size++;
+
+        int slot = home(fingerprint);
+        while (index[slot] != 0) {
+            slot = (slot + 1) & indexMask;
+        }
+        index[slot] = position + 1;
+
+        long bits = bloomBits(fingerprint);
+        bloomCurrent[bloomWord(fingerprint)] |= bits;
+    }
+
+    private void evictOldest() {
+        if (ring[2 * head + 1] != FORGOTTEN) {
+            int slot = find(ring[2 * head]);
+            if (slot >= 0 && index[slot] - 1 == head) {
+                removeSlot(slot);
+            }
+        }
+        head = (head + 1) % capacity;
+        size--;
+    }
+
+    /** @return the index slot holding {@code fingerprint}, or -1 */
+    private int find(long fingerprint) {
+        int slot = home(fingerprint);
+        int entry;
+        while ((entry = index[slot]) != 0) {
+            if (ring[2 * entry - 2] == fingerprint && ring[2 * entry - 1] != FORGOTTEN) {
+                return slot;
+            }
+            slot = (slot + 1) & indexMask;
+        }
+        return -1;
+    }
+
+    /** Linear-probing delete with backward shift, so no tombstones build up. */
+    private void removeSlot(int slot) {
+        int gap = slot;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & indexMask;
+            int entry = index[next];
+            if (entry == 0) {
+                index[gap] = 0;
+                return;
+            }
+            int home = home(ring[2 * entry - 2]);
+            boolean staysPut = gap <= next ? gap < home && home <= next : gap < home || home <= next;
+            if (!staysPut) {
+                index[gap] = entry;
+                gap = next;
+            }
+        }
+    }
+
+    private int home(long fingerprint) {
+        return (int) fingerprint & indexMask;
+    }
+
+    private boolean mightContain(long fingerprint) {
+        int word = bloomWord(fingerprint);
+        long bits = bloomBits(fingerprint);
+        return (bloomCurrent[word] & bits) == bits || (bloomPrevious[word] & bits) == bits;
+    }
+
+    private int bloomWord(long fingerprint) {
+        return (int) (fingerprint >>> 40) & bloomMask;
+    }
+
+    private static long bloomBits(long fingerprint) {
+        long bits = 0;
+        long h = fingerprint * 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            bits |= 1L << (h >>> 58);
+            h <<= 6;
+        }
+        return bits;
+    }
+}
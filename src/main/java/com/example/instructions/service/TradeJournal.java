@@ -0,0 +1,271 @@
+package com.example.instructions.service;
+
+import com.example.instructions.model.CanonicalTrade;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Durable, append-only store for {@link CanonicalTrade}s used by {@link TradeStore} in persistent mode.
+ * <p>
+ * Records are appended to fixed-size, memory-mapped segment files ({@code journal-NNNNN.dat}), each framed as a
+ * 4-byte length followed by a compact binary encoding of the trade. Every append also writes a 24-byte entry
+ * (id, segment, offset) to {@code journal.idx}. On startup only the index is read to rebuild the id lookup and
+ * the write position, so restart time depends on the number of index entries rather than the journal size.
+ * A truncated trailing index entry, left by a crash mid-append, is discarded.
+ * <p>
+ * Appends are left to the OS to write back and are never forced, so the journal outlives the process but not a
+ * host or power failure.
+ */
+@Slf4j
+public class TradeJournal implements Closeable {
+
+    static final String INDEX_FILE = "journal.idx";
+    private static final int INDEX_ENTRY_BYTES = 24;
+    private static final int LENGTH_PREFIX_BYTES = 4;
+
+    private static final int HAS_ACCOUNT = 1;
+    private static final int HAS_SECURITY = 1 << 1;
+    private static final int HAS_TYPE = 1 << 2;
+    private static final int HAS_QUANTITY = 1 << 3;
+    private static final int HAS_PRICE = 1 << 4;
+    private static final int HAS_AMOUNT = 1 << 5;
+    private static final int HAS_TIMESTAMP = 1 << 6;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final List<MappedByteBuffer> segments = new CopyOnWriteArrayList<>();
+    private final Map<UUID, Long> index;
+    private final FileChannel indexChannel;
+
+    private final ByteBuffer scratch;
+    private final ByteBuffer indexEntry = ByteBuffer.allocate(INDEX_ENTRY_BYTES);
+    private long indexEntries;
+    private int writeSegment;
+    private int writeOffset;
+
+    public TradeJournal(Path directory, int segmentSize) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.scratch = ByteBuffer.allocate(Math.min(segmentSize, 64 * 1024));
+        Files.createDirectories(directory);
+
+        long started = System.nanoTime();
+        this.indexChannel = FileChannel.open(directory.resolve(INDEX_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.index = replayIndex();
+        log.info("Trade journal opened at {} with {} records in {} ms", directory, index.size(),
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    public synchronized void append(UUID id, CanonicalTrade trade) throws IOException {
+        scratch.clear();
+        try {
+            encode(trade, scratch);
+        } catch (BufferOverflowException e) {
+            throw new IllegalArgumentException("Trade is too large for a journal record.", e);
+        }
+        scratch.flip();
+        int recordBytes = LENGTH_PREFIX_BYTES + scratch.remaining();
+
+        if (segments.isEmpty() || writeOffset + recordBytes > segmentSize) {
+            if (!segments.isEmpty()) {
+                segments.get(writeSegment).force();
+                writeSegment++;
+            }
+            mapSegment(writeSegment);
+            writeOffset = 0;
+        }
+
+        MappedByteBuffer segment = segments.get(writeSegment);
+        segment.putInt(writeOffset, scratch.remaining());
+        segment.put(writeOffset + LENGTH_PREFIX_BYTES, scratch, 0, scratch.remaining());
+
+        indexEntry.clear();
+        indexEntry.putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits())
+                .putInt(writeSegment).putInt(writeOffset).flip();
+        indexChannel.write(indexEntry, indexEntries * INDEX_ENTRY_BYTES);
+        indexEntries++;
+
+        index.put(id, location(writeSegment, writeOffset));
+        writeOffset += recordBytes;
+    }
+
+    public CanonicalTrade read(UUID id) {
+        Long location = index.get(id);
+        if (location == null) {
+            return null;
+        }
+        MappedByteBuffer segment = segments.get((int) (location >>> 32));
+        int offset = (int) (long) location;
+        int length = segment.getInt(offset);
+        CanonicalTrade trade = decode(segment.slice(offset + LENGTH_PREFIX_BYTES, length));
+        trade.setCanonicalId(id.toString());
+        return trade;
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+        indexChannel.force(true);
+        indexChannel.close();
+    }
+
+    private ConcurrentHashMap<UUID, Long> replayIndex() throws IOException {
+        long entries = indexChannel.size() / INDEX_ENTRY_BYTES;
+        if (indexChannel.size() % INDEX_ENTRY_BYTES != 0) {
+            log.warn("Discarding truncated trailing entry in {}", directory.resolve(INDEX_FILE));
+            indexChannel.truncate(entries * INDEX_ENTRY_BYTES);
+        }
+
+        ConcurrentHashMap<UUID, Long> replayed = new ConcurrentHashMap<>((int) Math.min(Integer.MAX_VALUE, entries));
+        ByteBuffer buffer = ByteBuffer.allocate(INDEX_ENTRY_BYTES * 8192);
+        long position = 0;
+        int lastSegment = -1;
+        int lastOffset = 0;
+        while (position < entries * INDEX_ENTRY_BYTES) {
+            buffer.clear();
+            int read = indexChannel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            buffer.flip();
+            while (buffer.remaining() >= INDEX_ENTRY_BYTES) {
+                UUID id = new UUID(buffer.getLong(), buffer.getLong());
+                lastSegment = buffer.getInt();
+                lastOffset = buffer.getInt();
+                replayed.put(id, location(lastSegment, lastOffset));
+            }
+            position += read - buffer.remaining();
+        }
+        indexEntries = position / INDEX_ENTRY_BYTES;
+
+        for (int i = 0; i <= lastSegment; i++) {
+            mapSegment(i);
+        }
+        if (lastSegment >= 0) {
+            // Resume right after the last indexed record; its length prefix is the only journal data read.
+            writeSegment = lastSegment;
+            writeOffset = lastOffset + LENGTH_PREFIX_BYTES + segments.get(lastSegment).getInt(lastOffset);
+        }
+        return replayed;
+    }
+
+    private void mapSegment(int number) throws IOException {
+        Path file = directory.resolve(String.format("journal-%05d.dat", number));
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segments.add(channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize));
+        }
+    }
+
+    private static long location(int segment, int offset) {
+        return ((long) segment << 32) | (offset & 0xFFFFFFFFL);
+    }
+
+    static void encode(CanonicalTrade trade, ByteBuffer out) {
+        int flags = (trade.getAccountNumber() != null ? HAS_ACCOUNT : 0)
+                | (trade.getSecurityId() != null ? HAS_SECURITY : 0)
+                | (trade.getTradeType() != null ? HAS_TYPE : 0)
+                | (trade.getQuantity() != null ? HAS_QUANTITY : 0)
+                | (trade.getPrice() != null ? HAS_PRICE : 0)
+                | (trade.getAmount() != null ? HAS_AMOUNT : 0)
+                | (trade.getTimestamp() != null ? HAS_TIMESTAMP : 0);
+        out.put((byte) flags);
+        if ((flags & HAS_ACCOUNT) != 0) {
+            putString(out, trade.getAccountNumber());
+        }
+        if ((flags & HAS_SECURITY) != 0) {
+            putString(out, trade.getSecurityId());
+        }
+        if ((flags & HAS_TYPE) != 0) {
+            putString(out, trade.getTradeType());
+        }
+        if ((flags & HAS_QUANTITY) != 0) {
+            out.putLong(trade.getQuantity());
+        }
+        if ((flags & HAS_PRICE) != 0) {
+            putDecimal(out, trade.getPrice());
+        }
+        if ((flags & HAS_AMOUNT) != 0) {
+            putDecimal(out, trade.getAmount());
+        }
+        if ((flags & HAS_TIMESTAMP) != 0) {
+            LocalDateTime timestamp = trade.getTimestamp();
+            out.putLong(timestamp.toEpochSecond(ZoneOffset.UTC)).putInt(timestamp.getNano());
+        }
+    }
+
+    static CanonicalTrade decode(ByteBuffer in) {
+        try {
+            int flags = in.get();
+            CanonicalTrade trade = new CanonicalTrade();
+            trade.setAccountNumber((flags & HAS_ACCOUNT) != 0 ? getString(in) : null);
+            trade.setSecurityId((flags & HAS_SECURITY) != 0 ? getString(in) : null);
+            trade.setTradeType((flags & HAS_TYPE) != 0 ? getString(in) : null);
+            trade.setQuantity((flags & HAS_QUANTITY) != 0 ? in.getLong() : null);
+            trade.setPrice((flags & HAS_PRICE) != 0 ? getDecimal(in) : null);
+            trade.setAmount((flags & HAS_AMOUNT) != 0 ? getDecimal(in) : null);
+            if ((flags & HAS_TIMESTAMP) != 0) {
+                trade.setTimestamp(LocalDateTime.ofEpochSecond(in.getLong(), in.getInt(), ZoneOffset.UTC));
+            }
+            return trade;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalStateException("Corrupt trade journal record.", e);
+        }
+    }
+
+    private static void putString(ByteBuffer out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new BufferOverflowException();
+        }
+        out.putShort((short) bytes.length).put(bytes);
+    }
+
+    private static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[Short.toUnsignedInt(in.getShort())];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void putDecimal(ByteBuffer out, BigDecimal value) {
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        if (unscaled.length > 0xFF) {
+            throw new BufferOverflowException();
+        }
+        out.putInt(value.scale()).put((byte) unscaled.length).put(unscaled);
+    }
+
+    private static BigDecimal getDecimal(ByteBuffer in) {
+        int scale = in.getInt();
+        byte[] unscaled = new byte[Byte.toUnsignedInt(in.get())];
+        in.get(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+}
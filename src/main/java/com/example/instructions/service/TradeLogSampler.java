@@ -0,0 +1,72 @@
+package com.example.instructions.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides which per-trade INFO lines are written and keeps the totals for a periodic summary line.
+ * <p>
+ * With {@code trade.logging.sample-rate=N} one in N per-trade lines is written, picked at random so that no shared
+ * counter is contended; the default of 1 writes all of them. Failures are never sampled out. Every
+ * {@code trade.logging.summary-interval} one line reports the trades received, processed, published and failed
+ * since the previous summary, and how many lines sampling left out.
+ */
+@Component
+public class TradeLogSampler {
+
+    private static final Logger log = LoggerFactory.getLogger(TradeLogSampler.class);
+
+    public enum Event {
+        RECEIVED, PROCESSED, PUBLISHED, FAILED
+    }
+
+    private final int sampleRate;
+    private final Duration summaryInterval;
+    private final LongAdder[] counts = new LongAdder[Event.values().length];
+    private final LongAdder sampledOut = new LongAdder();
+
+    public TradeLogSampler(@Value("${trade.logging.sample-rate:1}") int sampleRate,
+                           @Value("${trade.logging.summary-interval:1m}") Duration summaryInterval) {
+        this.sampleRate = sampleRate;
+        this.summaryInterval = summaryInterval;
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Counts the event and reports whether its per-trade line should be written. Call it before checking the
+     * log level, so the summary stays accurate when INFO is off.
+     */
+    public boolean sample(Event event) {
+        counts[event.ordinal()].increment();
+        if (event == Event.FAILED || sampleRate <= 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0) {
+            return true;
+        }
+        sampledOut.increment();
+        return false;
+    }
+
+    @Scheduled(fixedRateString = "${trade.logging.summary-interval:1m}",
+            initialDelayString = "${trade.logging.summary-interval:1m}")
+    public void logSummary() {
+        long received = counts[Event.RECEIVED.ordinal()].sumThenReset();
+        long processed = counts[Event.PROCESSED.ordinal()].sumThenReset();
+        long published = counts[Event.PUBLISHED.ordinal()].sumThenReset();
+        long failed = counts[Event.FAILED.ordinal()].sumThenReset();
+        long skipped = sampledOut.sumThenReset();
+        if (received + processed + published + failed == 0) {
+            return;
+        }
+        log.info("Trades in the last {}s: {} received, {} processed, {} published, {} failed "
+                + "({} per-trade lines sampled out)",
+                summaryInterval.toSeconds(), received, processed, published, failed, skipped);
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.instructions.service;
+
+import com.example.instructions.model.RejectionReason;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Micrometer instrumentation for the trade path.
+ * <p>
+ * Every meter is registered up front and held in an enum-indexed table, so recording is a lookup plus a
+ * {@link Timer#record(long, TimeUnit)} or {@link Counter#increment()}: no tags are built and nothing is
+ * allocated per trade.
+ * <ul>
+ *   <li>{@code trade.stage.duration{stage}}: parse (uploads), transform, serialize, and publish (send to ack)</li>
+ *   <li>{@code trade.end_to_end.latency}: Kafka record timestamp, or upload read time, to broker ack</li>
+ *   <li>{@code trade.rejections{outcome,reason}}: trades that did not reach the outbound topic</li>
+ *   <li>{@code trade.publish.in_flight}: sends waiting for a broker ack</li>
+ * </ul>
+ */
+@Component
+public class TradeMetrics {
+
+    public enum Stage {
+        PARSE, TRANSFORM, SERIALIZE, PUBLISH
+    }
+
+    private final Map<Stage, Timer> stageTimers = new EnumMap<>(Stage.class);
+    private final Map<RejectionReason, Counter> rejections = new EnumMap<>(RejectionReason.class);
+    private final Timer endToEnd;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public TradeMetrics(MeterRegistry registry) {
+        for (Stage stage : Stage.values()) {
+            stageTimers.put(stage, Timer.builder("trade.stage.duration")
+                    .description("Time spent in one stage of the trade path")
+                    .tag("stage", stage.name().toLowerCase(Locale.ROOT))
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        for (RejectionReason reason : RejectionReason.values()) {
+            rejections.put(reason, Counter.builder("trade.rejections")
+                    .description("Trades that did not reach the outbound topic")
+                    .tag("outcome", reason.outcome())
+                    .tag("reason", reason.name().toLowerCase(Locale.ROOT))
+                    .register(registry));
+        }
+        endToEnd = Timer.builder("trade.end_to_end.latency")
+                .description("Kafka record timestamp, or upload read time, to broker acknowledgement")
+                .publishPercentileHistogram()
+                .register(registry);
+        Gauge.builder("trade.publish.in_flight", inFlight, AtomicInteger::get)
+                .description("Outbound sends waiting for a broker acknowledgement")
+                .register(registry);
+    }
+
+    public void recordStage(Stage stage, long startNanos) {
+        stageTimers.get(stage).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void reject(RejectionReason reason) {
+        rejections.get(reason).increment();
+    }
+
+    public void sendStarted() {
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * @param startNanos  {@link System#nanoTime()} when the send was issued
+     * @param originMillis epoch millis the trade entered the service, or a negative value if unknown
+     */
+    public void sendCompleted(long startNanos, long originMillis, boolean acknowledged) {
+        inFlight.decrementAndGet();
+        if (!acknowledged) {
+            reject(RejectionReason.SEND_FAILED);
+            return;
+        }
+        recordStage(Stage.PUBLISH, startNanos);
+        if (originMillis >= 0) {
+            endToEnd.record(Math.max(0, System.currentTimeMillis() - originMillis), TimeUnit.MILLISECONDS);
+        }
+    }
+}
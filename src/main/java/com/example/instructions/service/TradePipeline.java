@@ -0,0 +1,187 @@
+package com.example.instructions.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Worker stage for file uploads: the parsing thread submits one task per trade and a fixed pool of
+ * workers runs transform, serialize and publish.
+ * <p>
+ * Each worker drains its own bounded lane, and a trade is routed to a lane by its security ID. Every
+ * trade for the same security is therefore handled by the same worker in submission order, which keeps
+ * per-key ordering on the outbound topic. A full lane blocks the parser, so memory stays bounded.
+ */
+@Component
+public class TradePipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(TradePipeline.class);
+
+    private final BlockingQueue<Task>[] lanes;
+    private final Thread[] workers;
+    private volatile boolean running = true;
+
+    @SuppressWarnings("unchecked")
+    public TradePipeline(@Value("${trade.pipeline.workers:0}") int workers,
+                         @Value("${trade.pipeline.queue-capacity:1024}") int queueCapacity) {
+        int workerCount = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        this.lanes = new BlockingQueue[workerCount];
+        this.workers = new Thread[workerCount];
+
+        for (int i = 0; i < workerCount; i++) {
+            BlockingQueue<Task> lane = new ArrayBlockingQueue<>(queueCapacity);
+            lanes[i] = lane;
+            Thread worker = new Thread(() -> drain(lane), "trade-pipeline-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            this.workers[i] = worker;
+        }
+        log.info("Trade pipeline started with {} workers and lane capacity {}", workerCount, queueCapacity);
+    }
+
+    public Batch newBatch() {
+        return new Batch();
+    }
+
+    /**
+     * Queues {@code work} on the lane owning {@code partitionKey}, blocking while that lane is full. Work that
+     * races with {@link #shutdown} and may have missed its worker's final drain runs on the caller instead, so
+     * {@link Batch#await} always returns.
+     *
+     * @throws IllegalStateException if the pipeline was already shut down; the work is not run
+     */
+    public void submit(Batch batch, String partitionKey, Runnable work) {
+        if (!running) {
+            throw new IllegalStateException("Trade pipeline is shut down.");
+        }
+        batch.pending.incrementAndGet();
+        Task task = new Task(batch, work);
+        BlockingQueue<Task> lane = lanes[laneFor(partitionKey, lanes.length)];
+        try {
+            while (!lane.offer(task, 100, TimeUnit.MILLISECONDS)) {
+                if (!running) {
+                    task.run(); // the worker may be gone and its lane stay full
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            batch.taskDone();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing trade for processing.", e);
+        }
+        // Removal fails only if a worker has taken the task, and then that worker runs it.
+        if (!running && lane.remove(task)) {
+            task.run();
+        }
+    }
+
+    public int workerCount() {
+        return workers.length;
+    }
+
+    /**
+     * Case-insensitive so that raw IDs which normalize to the same Kafka key share a lane.
+     */
+    static int laneFor(String partitionKey, int laneCount) {
+        if (partitionKey == null) {
+            return 0;
+        }
+        int h = 0;
+        for (int i = 0; i < partitionKey.length(); i++) {
+            h = 31 * h + Character.toUpperCase(partitionKey.charAt(i));
+        }
+        return Math.floorMod(h ^ (h >>> 16), laneCount);
+    }
+
+    private void drain(BlockingQueue<Task> lane) {
+        while (running) {
+            try {
+                lane.take().run();
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+        // Finish whatever was already accepted so that no waiting upload is left hanging.
+        Task task;
+        while ((task = lane.poll()) != null) {
+            task.run();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+    }
+
+    private record Task(Batch batch, Runnable work) {
+        void run() {
+            try {
+                work.run();
+            } catch (RuntimeException e) {
+                log.error("Unexpected error in trade pipeline worker.", e);
+            } finally {
+                batch.taskDone();
+            }
+        }
+    }
+
+    /**
+     * Tracks the tasks submitted for one upload so the caller can wait for all of them to finish.
+     */
+    public static final class Batch {
+
+        private final AtomicLong pending = new AtomicLong();
+        // A j.u.c. lock rather than a monitor: a virtual thread waiting on a monitor pins its carrier on JDK 21.
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition done = lock.newCondition();
+
+        private Batch() {
+        }
+
+        private void taskDone() {
+            if (pending.decrementAndGet() == 0) {
+                lock.lock();
+                try {
+                    done.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        /**
+         * Blocks until every submitted task has run. Interrupts are deferred until then because the
+         * workers will finish the tasks regardless.
+         */
+        public void await() {
+            boolean interrupted = false;
+            lock.lock();
+            try {
+                while (pending.get() > 0) {
+                    try {
+                        done.await();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
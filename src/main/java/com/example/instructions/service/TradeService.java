@@ -1,137 +1,623 @@
 package com.example.instructions.service;
 
+import com.example.instructions.config.PayloadFormat;
 import com.example.instructions.model.CanonicalTrade;
 import com.example.instructions.model.PlatformTrade;
+import com.example.instructions.model.RejectionReason;
+import com.example.instructions.util.CsvTradeReader;
+import com.example.instructions.util.PlatformRoutes;
+import com.example.instructions.util.PlatformRules;
+import com.example.instructions.util.RateLimitedLogger;
 import com.example.instructions.util.TradeTransformer;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.dataformat.csv.CsvMapper;
-import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
 
 @Service
 public class TradeService {
 
 	private static final Logger log = LoggerFactory.getLogger(TradeService.class);
 	
-	private final String platformId;
+	private final PlatformRules[] platforms;
 	private final TradeTransformer tradeTransformer;
 	private final KafkaPublisher kafkaPublisher;
 	private final ObjectMapper objectMapper;
 	private final CsvMapper csvMapper;
+	private final TradePipeline tradePipeline;
+	private final ObjectWriter platformTradeWriter;
+	private final boolean payloadIsJson;
+	private final TradeAuditLog auditLog;
+	private final TradeMetrics metrics;
+	private final TradeDeduplicator deduplicator;
+	private final DedupShards dedupShards;
+	private final PositionAggregator positions;
+	private final TradeLogSampler logSampler;
+	private final RejectsReports rejectsReports;
+	private final RateLimitedLogger validationWarnings = new RateLimitedLogger(log, Duration.ofSeconds(10));
 
-	private final ConcurrentHashMap<String, CanonicalTrade> auditStore = new ConcurrentHashMap<>();
+	@Value("${trade.publish.ack-timeout:2m}")
+	private Duration ackTimeout = Duration.ofMinutes(2);
+
+	@Value("${trade.upload.archive-parallelism:4}")
+	private int archiveParallelism = 4;
 
 	public TradeService(TradeTransformer tradeTransformer, KafkaPublisher kafkaPublisher, ObjectMapper objectMapper,
-			CsvMapper csvMapper, @Value("${trade.platform.id:ACCT123}") String platformId) {
+			CsvMapper csvMapper, TradePipeline tradePipeline, TradeAuditLog auditLog, TradeMetrics metrics,
+			TradeDeduplicator deduplicator, DedupShards dedupShards, PositionAggregator positions,
+			TradeLogSampler logSampler, PlatformRoutes routes, RejectsReports rejectsReports) {
 		this.tradeTransformer = tradeTransformer;
 		this.kafkaPublisher = kafkaPublisher;
 		this.objectMapper = objectMapper;
 		this.csvMapper = csvMapper;
-		this.platformId = platformId;
+		this.tradePipeline = tradePipeline;
+		this.auditLog = auditLog;
+		this.metrics = metrics;
+		this.deduplicator = deduplicator;
+		this.dedupShards = dedupShards;
+		this.positions = positions;
+		this.logSampler = logSampler;
+		this.rejectsReports = rejectsReports;
+		this.payloadIsJson = kafkaPublisher.encoding() == PayloadFormat.JSON;
+		this.platformTradeWriter = kafkaPublisher.encoding().newPayloadMapper()
+				.writerFor(PlatformTrade.PlatformTradeWrapper.class);
+		this.platforms = routes.platforms().toArray(new PlatformRules[0]);
 	}
 
-	public int processFileUpload(MultipartFile file) {
+	/**
+	 * @return the outcome counts of the upload, final once every send has been acknowledged or has failed
+	 */
+	public IngestionProgress processFileUpload(MultipartFile file) {
 		String fileName = file.getOriginalFilename();
 
 		if (file.isEmpty() || fileName == null) {
 			throw new IllegalArgumentException("File cannot be empty.");
 		}
 
-		int processedCount = 0;
-
+		IngestionProgress progress = newProgress(UUID.randomUUID().toString());
 		try (InputStream inputStream = file.getInputStream()) {
-
-			if (fileName.endsWith(".csv")) {
-				processedCount = processCsv(inputStream);
-			} else if (fileName.endsWith(".json")) {
-				processedCount = processJson(inputStream);
-			} else {
-				throw new IllegalArgumentException("Unsupported file type. Only .csv and .json are accepted.");
-			}
-
+			processStream(fileName, inputStream, progress);
+			return progress;
 		} catch (IOException e) {
+			progress.finish();
 			log.error("I/O error during file stream processing.", e);
 			throw new RuntimeException("Could not read file stream.", e);
 		}
+	}
+
+	/**
+	 * Progress for a new upload, listing its rejected records in a report that {@link RejectsReports} finds by
+	 * {@code uploadId}.
+	 */
+	public IngestionProgress newProgress(String uploadId) {
+		return new IngestionProgress(rejectsReports.newReport(uploadId));
+	}
+
+	/**
+	 * Parses and processes every trade in the given stream, dispatching on the file name suffix: a {@code .gz}
+	 * file is decompressed as it is read, and the files of a {@code .zip} are processed one after the other.
+	 * The calling thread only parses; each record is handed to the {@link TradePipeline} workers as soon as it
+	 * is read, and the method returns once all of them have been processed and their sends have been
+	 * acknowledged or have failed (bounded by {@code trade.publish.ack-timeout}).
+	 */
+	public int processStream(String fileName, InputStream inputStream) throws IOException {
+		return processStream(fileName, inputStream, new IngestionProgress());
+	}
+
+	/**
+	 * Same as {@link #processStream(String, InputStream)}, reporting per-record outcomes to {@code progress}.
+	 */
+	public int processStream(String fileName, InputStream inputStream, IngestionProgress progress)
+			throws IOException {
+		checkSupportedFile(fileName);
+		return settle(fileName, progress, () -> fileName.endsWith(".zip")
+				? processZipStream(inputStream, progress)
+				: parse(fileName, inputStream, progress));
+	}
+
+	/**
+	 * Same as {@link #processStream(String, InputStream, IngestionProgress)} for an upload already on disk. The
+	 * files of a {@code .zip} are then read straight from the archive, up to
+	 * {@code trade.upload.archive-parallelism} of them at a time.
+	 */
+	public int processFile(String fileName, Path file, IngestionProgress progress) throws IOException {
+		if (!fileName.endsWith(".zip")) {
+			try (InputStream in = Files.newInputStream(file)) {
+				return processStream(fileName, in, progress);
+			}
+		}
+		return settle(fileName, progress, () -> processZipFile(file, progress));
+	}
 
-		log.info("Successfully processed {} records from file: {}", processedCount, fileName);
+	/** Runs {@code parse}, then waits for the upload's sends and completes its progress. */
+	private int settle(String fileName, IngestionProgress progress, UploadParser parse) throws IOException {
+		int processedCount;
+		try {
+			processedCount = parse.parse();
+			awaitSends(fileName, progress);
+		} finally {
+			progress.finish();
+		}
+
+		log.info("Successfully processed {} records from file: {} ({} acknowledged, {} failed, {} rejected)",
+				processedCount, fileName, progress.published(), progress.failed(), progress.rejected());
+		if (progress.rejectsFile() != null) {
+			log.info("Records of {} that were not published: {} listed in {}", fileName, progress.rejections(),
+					progress.rejectsFile());
+		}
 		return processedCount; // Return the count to the controller
 	}
 
-	private int processJson(InputStream inputStream) throws IOException {
-		List<CanonicalTrade> trades = objectMapper.readerForListOf(CanonicalTrade.class).readValue(inputStream);
+	/**
+	 * Processes an open-ended feed of newline-delimited trades as its bytes arrive. After every {@code ackEvery}
+	 * trades the caller waits until they have been processed and their sends have completed, then
+	 * {@code onBatch} is called with the running totals; it is not called again for the final, partial batch,
+	 * which is settled before the method returns.
+	 */
+	public int processFeed(String feedName, InputStream inputStream, IngestionProgress progress, int ackEvery,
+			Consumer<IngestionProgress> onBatch) throws IOException {
+		int processedCount;
+		try {
+			processedCount = processJson(inputStream, progress, ackEvery, () -> {
+				awaitSends(feedName, progress);
+				onBatch.accept(progress);
+			});
+			awaitSends(feedName, progress);
+		} finally {
+			progress.finish();
+		}
+		log.info("Feed {} ended after {} records ({} acknowledged, {} failed, {} rejected)", feedName,
+				processedCount, progress.published(), progress.failed(), progress.rejected());
+		return processedCount;
+	}
+
+	/**
+	 * Upload-scoped flush barrier. The producer's own linger and batching still apply, so this waits for at
+	 * most about one {@code linger.ms} plus a broker round trip after the last send.
+	 */
+	private void awaitSends(String fileName, IngestionProgress progress) {
+		try {
+			if (!progress.awaitSends(ackTimeout)) {
+				log.warn("Timed out after {} waiting for {} outbound acknowledgements of file: {}", ackTimeout,
+						progress.pending(), fileName);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			log.warn("Interrupted while waiting for outbound acknowledgements of file: {}", fileName);
+		}
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the file name does not have a supported suffix
+	 */
+	public static void checkSupportedFile(String fileName) {
+		if (!fileName.endsWith(".zip") && !isTradeFile(fileName)) {
+			throw new IllegalArgumentException(
+					"Unsupported file type. Only .csv, .json and .ndjson, gzipped or not, and .zip are accepted.");
+		}
+	}
+
+	private static boolean isTradeFile(String name) {
+		String plain = name.endsWith(".gz") ? name.substring(0, name.length() - 3) : name;
+		return plain.endsWith(".csv") || plain.endsWith(".json") || plain.endsWith(".ndjson")
+				|| plain.endsWith(".jsonl");
+	}
+
+	/** Parses one trade file, decompressing it on the fly if it is gzipped. */
+	private int parse(String name, InputStream inputStream, IngestionProgress progress) throws IOException {
+		if (name.endsWith(".gz")) {
+			return parse(name.substring(0, name.length() - 3), new GZIPInputStream(inputStream, 64 * 1024), progress);
+		}
+		return name.endsWith(".csv") ? processCsv(inputStream, progress) : processJson(inputStream, progress, 0, null);
+	}
 
+	/**
+	 * Reads the archive front to back, so its files are processed in turn. Directories and files that are not
+	 * trade files are skipped, nested archives included.
+	 */
+	private int processZipStream(InputStream inputStream, IngestionProgress progress) throws IOException {
+		ZipInputStream zip = new ZipInputStream(inputStream);
+		InputStream entryStream = new FilterInputStream(zip) {
+			@Override
+			public void close() {
+				// the JSON parser closes its source; the next entry is read from the same stream
+			}
+		};
 		int count = 0;
-		for (CanonicalTrade trade : trades) {
-			processTrade(trade);
-			count++;
+		for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+			if (isArchivedTradeFile(entry)) {
+				count += parse(entry.getName(), entryStream, progress.entry(entry.getName()));
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Processes the files of the archive on up to {@code trade.upload.archive-parallelism} virtual threads, each
+	 * reading its own entry. Trades of one file keep their order; trades of different files interleave. If a file
+	 * fails, the ones already started are finished, no new ones are started and the first failure is rethrown.
+	 */
+	private int processZipFile(Path file, IngestionProgress progress) throws IOException {
+		try (ZipFile zip = new ZipFile(file.toFile())) {
+			List<? extends ZipEntry> entries = zip.stream().filter(TradeService::isArchivedTradeFile).toList();
+			AtomicInteger next = new AtomicInteger();
+			AtomicBoolean failed = new AtomicBoolean();
+			List<Future<Integer>> workers = new ArrayList<>();
+			try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+				for (int i = 0; i < Math.min(archiveParallelism, entries.size()); i++) {
+					workers.add(executor.submit(() -> {
+						int count = 0;
+						for (int e = next.getAndIncrement(); e < entries.size() && !failed.get();
+								e = next.getAndIncrement()) {
+							ZipEntry entry = entries.get(e);
+							try (InputStream in = zip.getInputStream(entry)) {
+								count += parse(entry.getName(), in, progress.entry(entry.getName()));
+							} catch (IOException | RuntimeException ex) {
+								failed.set(true);
+								throw ex;
+							}
+						}
+						return count;
+					}));
+				}
+			}
+			int count = 0;
+			for (Future<Integer> worker : workers) {
+				count += joinEntryWorker(worker);
+			}
+			return count;
+		}
+	}
+
+	private static int joinEntryWorker(Future<Integer> worker) throws IOException {
+		try {
+			return worker.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while processing archive.", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException io) {
+				throw io;
+			}
+			if (e.getCause() instanceof RuntimeException runtime) {
+				throw runtime;
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	private static boolean isArchivedTradeFile(ZipEntry entry) {
+		if (entry.isDirectory()) {
+			return false;
+		}
+		if (isTradeFile(entry.getName())) {
+			return true;
+		}
+		log.warn("Skipping {} in archive: not a trade file", entry.getName());
+		return false;
+	}
+
+	@FunctionalInterface
+	private interface UploadParser {
+		int parse() throws IOException;
+	}
+
+	/**
+	 * Streams either a top-level JSON array or newline-delimited JSON (one trade per line), binding one
+	 * element at a time so heap usage stays flat regardless of file size.
+	 *
+	 * @param ackEvery if positive, every this many trades the parser waits for the pipeline to process them and
+	 *                 then runs {@code onBatch}
+	 */
+	private int processJson(InputStream inputStream, IngestionProgress progress, int ackEvery, Runnable onBatch)
+			throws IOException {
+		ObjectReader reader = objectMapper.readerFor(CanonicalTrade.class);
+		TradePipeline.Batch batch = tradePipeline.newBatch();
+
+		int count = 0;
+		try (JsonParser parser = objectMapper.getFactory().createParser(inputStream)) {
+			JsonToken token = parser.nextToken();
+			boolean array = token == JsonToken.START_ARRAY;
+			if (array) {
+				token = parser.nextToken();
+			}
+
+			while (token != null && !(array && token == JsonToken.END_ARRAY)) {
+				long line = parser.currentTokenLocation().getLineNr();
+				long parseStart = System.nanoTime();
+				CanonicalTrade trade = reader.readValue(parser);
+				metrics.recordStage(TradeMetrics.Stage.PARSE, parseStart);
+				progress.recordRead();
+				submit(batch, trade, progress, line);
+				count++;
+				if (ackEvery > 0 && count % ackEvery == 0) {
+					batch.await();
+					onBatch.run();
+				}
+				token = parser.nextToken();
+			}
+
+			if (array && token != JsonToken.END_ARRAY) {
+				throw new IllegalArgumentException("Malformed JSON: array is not terminated.");
+			}
+		} finally {
+			batch.await();
 		}
 
 		return count;
 	}
 
-	private int processCsv(InputStream inputStream) throws IOException {
-		CsvSchema schema = CsvSchema.emptySchema().withHeader();
-		MappingIterator<CanonicalTrade> it = csvMapper.readerFor(CanonicalTrade.class).with(schema)
-				.readValues(inputStream);
+	private int processCsv(InputStream inputStream, IngestionProgress progress) throws IOException {
+		CsvTradeReader reader = CsvTradeReader.open(inputStream, csvMapper);
+
+		TradePipeline.Batch batch = tradePipeline.newBatch();
 
 		int count = 0;
-		while (it.hasNext()) {
-			CanonicalTrade trade = it.next();
-			processTrade(trade);
-			count++;
+		try {
+			while (true) {
+				long parseStart = System.nanoTime();
+				CanonicalTrade trade = reader.next();
+				if (trade == null) {
+					break;
+				}
+				metrics.recordStage(TradeMetrics.Stage.PARSE, parseStart);
+				progress.recordRead();
+				submit(batch, trade, progress, reader.line());
+				count++;
+			}
+		} finally {
+			batch.await();
 		}
 
 		return count;
 	}
 
+	private void submit(TradePipeline.Batch batch, CanonicalTrade trade, IngestionProgress progress, long line) {
+		String partitionKey = trade != null ? trade.getSecurityId() : null;
+		long readAt = System.currentTimeMillis();
+		tradePipeline.submit(batch, partitionKey,
+				() -> track(publishTrade(trade, readAt, deduplicator, progress, line, null), progress, line));
+	}
+
+	private static void track(CompletableFuture<?> send, IngestionProgress progress, long line) {
+		if (send == null) {
+			return; // already recorded as rejected by publishTrade
+		}
+		progress.sendStarted();
+		send.whenComplete((result, ex) -> {
+			if (ex == null) {
+				progress.recordPublished();
+			} else {
+				progress.recordFailed(line);
+			}
+		});
+	}
+
+	/**
+	 * Processes a single trade handed over directly, which enters the system now.
+	 */
 	public void processTrade(CanonicalTrade canonicalTrade) {
-		String originalAccountNumber = canonicalTrade != null ? canonicalTrade.getAccountNumber() : null;
+		processTrade(canonicalTrade, System.currentTimeMillis());
+	}
+
+	/**
+	 * @param originMillis epoch millis the trade entered the system (the Kafka record timestamp), used for
+	 *                     end-to-end latency; negative if unknown
+	 */
+	public void processTrade(CanonicalTrade canonicalTrade, long originMillis) {
+		publishTrade(canonicalTrade, originMillis, deduplicator, null, 0, null);
+	}
 
-		if (originalAccountNumber == null || originalAccountNumber.isEmpty()) {
-			log.error("Validation Failed: CanonicalTrade or AccountNumber is null/empty. Dropping message.");
-			return;
+	/**
+	 * Processes a trade consumed from Kafka on the thread that owns its partition, checking for duplicates against
+	 * that partition's {@link DedupShards shard} only.
+	 */
+	public void processTrade(CanonicalTrade canonicalTrade, ConsumerRecord<?, ?> record) {
+		publishTrade(canonicalTrade, record.timestamp(), dedupShards.forPartition(record.topic(), record.partition()),
+				null, 0, null);
+	}
+
+	/**
+	 * Transforms and publishes all trades from one consumer poll. The returned future completes once every
+	 * send has been acknowledged by the broker, or exceptionally if any of them failed. Dropped trades do not
+	 * hold up the batch.
+	 * <p>
+	 * Inside a Kafka transaction (exactly-once mode) the sends are part of it, and positions move and dedup
+	 * fingerprints are kept only once it commits. If it rolls back the batch is delivered again and must not be
+	 * taken for duplicates of itself.
+	 */
+	public CompletableFuture<Void> processBatch(List<ConsumerRecord<String, CanonicalTrade>> records) {
+		TransactionEffects transaction = null;
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			transaction = new TransactionEffects(records.size());
+			TransactionSynchronizationManager.registerSynchronization(transaction);
+		}
+		List<CompletableFuture<?>> sends = new ArrayList<>(records.size());
+		for (ConsumerRecord<String, CanonicalTrade> record : records) {
+			CompletableFuture<?> send = publishTrade(record.value(), record.timestamp(),
+					dedupShards.forPartition(record.topic(), record.partition()), null, 0, transaction);
+			if (send != null) {
+				sends.add(send);
+			}
+		}
+		return CompletableFuture.allOf(sends.toArray(new CompletableFuture<?>[0]));
+	}
+
+	/**
+	 * @param dedup    the shared deduplicator for uploads, the partition's shard for trades from Kafka
+	 * @param progress the upload the trade belongs to, or {@code null} for trades from Kafka
+	 * @param line     the line of the upload the trade starts on
+	 * @param transaction the Kafka transaction the send is part of, or {@code null}
+	 * @return the pending send, or {@code null} if the trade was dropped before publishing
+	 */
+	private CompletableFuture<?> publishTrade(CanonicalTrade canonicalTrade, long originMillis,
+			TradeDeduplicator dedup, IngestionProgress progress, long line, TransactionEffects transaction) {
+		// Validation reports a reason code instead of throwing: a file full of bad rows costs no stack traces.
+		RejectionReason invalid = tradeTransformer.validate(canonicalTrade);
+		if (invalid != null) {
+			validationWarnings.warn("Validation Failed: {}. Dropping trade.", invalid);
+			reject(invalid, progress, line);
+			return null;
+		}
+		String originalAccountNumber = canonicalTrade.getAccountNumber();
+
+		// 0. IDEMPOTENCY (redeliveries after a rebalance, repeated uploads)
+		boolean deduplicate = dedup.isEnabled();
+		long fingerprint = deduplicate ? TradeDeduplicator.fingerprint(canonicalTrade) : 0;
+		if (deduplicate && !dedup.firstSeen(fingerprint)) {
+			log.debug("Duplicate trade for Account {} within the dedup window. Skipping.", originalAccountNumber);
+			reject(RejectionReason.DUPLICATE, progress, line);
+			return null;
 		}
 
 		try {
 			// 1. AUDIT (In-Memory Storage)
-			auditStore.put(originalAccountNumber, canonicalTrade);
+			auditLog.record(canonicalTrade);
 
-			// 2. TRANSFORM and SANITIZE
+			// 2. TRANSFORM and SANITIZE (the part shared by all platforms)
+			long stageStart = System.nanoTime();
 			PlatformTrade transformedTrade = tradeTransformer.transformToPlatformTrade(canonicalTrade);
+			metrics.recordStage(TradeMetrics.Stage.TRANSFORM, stageStart);
+
+			// 3-5. Per platform: its rules, WRAPPER, SERIALIZE and LOG. Every payload is encoded before the first
+			// send, so a trade that cannot be encoded for one platform is not published to any.
+			byte[][] payloads = new byte[platforms.length][];
+			for (int i = 0; i < platforms.length; i++) {
+				PlatformRules platform = platforms[i];
+				PlatformTrade.PlatformTradeWrapper wrapper = new PlatformTrade.PlatformTradeWrapper(platform.id(),
+						platform.apply(transformedTrade, originalAccountNumber));
 
-			// 3. WRAPPER CREATION (Correctly uses the AllArgsConstructor)
-			PlatformTrade.PlatformTradeWrapper wrapper = new PlatformTrade.PlatformTradeWrapper(this.platformId,
-					transformedTrade);
+				// SERIALIZE (once, in the publisher's encoding: Jackson encodes through its recycled buffers, and the
+				// resulting bytes are handed to the producer's ByteArraySerializer and, when JSON, logged as they are)
+				stageStart = System.nanoTime();
+				payloads[i] = platformTradeWriter.writeValueAsBytes(wrapper);
+				metrics.recordStage(TradeMetrics.Stage.SERIALIZE, stageStart);
 
-			// 4. SERIALIZE
-			String finalTradeJson = objectMapper.writeValueAsString(wrapper);
+				// LOG (Required step for verification; sampled under trade.logging.sample-rate)
+				if (logSampler.sample(TradeLogSampler.Event.PROCESSED) && log.isInfoEnabled()) {
+					log.info("PLATFORM-SPECIFIC JSON: {}", payloadIsJson
+							? new String(payloads[i], StandardCharsets.UTF_8) : objectMapper.writeValueAsString(wrapper));
+				}
+			}
 
-			// 5. LOG (Required step for verification)
-			log.info("PLATFORM-SPECIFIC JSON: {}", finalTradeJson);
+			// 6. PUBLISH TO KAFKA, to each platform's topic; the trade counts as published once every platform has it
+			CompletableFuture<?> send = publish(transformedTrade.getSecurity(), payloads, originMillis);
 
-			// 6. PUBLISH TO KAFKA
-			kafkaPublisher.publish(wrapper);
+			// 7. POSITIONS and IDEMPOTENCY, once the broker has answered: only trades it has accepted count as seen
+			// or move a position, since a failed one may be delivered again. In a transaction, once it has committed.
+			Long quantity = canonicalTrade.getQuantity();
+			Runnable position = () -> positions.record(transformedTrade.getSecurity(), originalAccountNumber,
+					transformedTrade.getType(), quantity, transformedTrade.getAmount());
+			if (transaction != null) {
+				transaction.onCompletion(position, () -> forget(dedup, fingerprint));
+			}
+			send.whenComplete((result, ex) -> {
+				if (ex != null) {
+					forget(dedup, fingerprint);
+				} else if (transaction == null) {
+					position.run();
+				}
+			});
+			return send;
 
 		} catch (IllegalArgumentException e) {
 			log.error("Validation/Sanitization Failed for CanonicalTrade with Account {}. Dropping message: {}",
 					originalAccountNumber, e.getMessage());
+			reject(RejectionReason.INVALID_TRADE, progress, line);
+			forget(dedup, fingerprint);
 
 		} catch (com.fasterxml.jackson.core.JsonProcessingException e) {
 			log.error("Error serializing PlatformTrade for Account {}: {}", originalAccountNumber, e.getMessage());
+			reject(RejectionReason.SERIALIZATION_ERROR, progress, line);
+			forget(dedup, fingerprint);
 
 		} catch (Exception e) {
 			log.error("Unexpected error during trade processing for Account {}.", originalAccountNumber, e);
+			reject(RejectionReason.PROCESSING_ERROR, progress, line);
+			forget(dedup, fingerprint);
+		}
+		return null;
+	}
+
+	private CompletableFuture<?> publish(String key, byte[][] payloads, long originMillis) {
+		if (platforms.length == 1) {
+			return kafkaPublisher.publish(platforms[0].topic(), key, payloads[0], originMillis);
+		}
+		CompletableFuture<?>[] sends = new CompletableFuture<?>[platforms.length];
+		for (int i = 0; i < platforms.length; i++) {
+			sends[i] = kafkaPublisher.publish(platforms[i].topic(), key, payloads[i], originMillis);
+		}
+		return CompletableFuture.allOf(sends);
+	}
+
+	private void reject(RejectionReason reason, IngestionProgress progress, long line) {
+		metrics.reject(reason);
+		if (progress != null) {
+			progress.recordRejected(line, reason);
+		}
+	}
+
+	private static void forget(TradeDeduplicator dedup, long fingerprint) {
+		if (dedup.isEnabled()) {
+			dedup.forget(fingerprint);
+		}
+	}
+
+	/**
+	 * What the trades of one transactional batch do to in-memory state once the transaction ends. Runs on the
+	 * consumer thread; an unknown outcome is treated as a rollback, since the batch is then delivered again.
+	 */
+	private static final class TransactionEffects implements TransactionSynchronization {
+
+		private final List<Runnable> onCommit;
+		private final List<Runnable> onRollback;
+
+		TransactionEffects(int trades) {
+			this.onCommit = new ArrayList<>(trades);
+			this.onRollback = new ArrayList<>(trades);
+		}
+
+		void onCompletion(Runnable commit, Runnable rollback) {
+			onCommit.add(commit);
+			onRollback.add(rollback);
+		}
+
+		@Override
+		public void afterCompletion(int status) {
+			(status == STATUS_COMMITTED ? onCommit : onRollback).forEach(Runnable::run);
 		}
 	}
 }
\ No newline at end of file
@@ -1,29 +1,93 @@
 package com.example.instructions.service;
 
 import com.example.instructions.model.CanonicalTrade;
+import com.example.instructions.model.CompactTrade;
+import com.example.instructions.util.SecurityDictionary;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Keeps canonical trades by generated ID. Trades are held in memory as {@link CompactTrade}s by default; with
+ * {@code trade.store.journal.enabled=true} they are appended to a {@link TradeJournal} instead. The journal is
+ * written through memory-mapped segments that are never forced to disk, so stored trades survive a restart or a
+ * crash of this process but may be lost if the host itself goes down.
+ */
 @Service
 @Slf4j
 public class TradeStore {
     
-    private final ConcurrentHashMap<String, CanonicalTrade> canonicalTradeStore = new ConcurrentHashMap<>();
-    
+    private final ConcurrentHashMap<String, CompactTrade> canonicalTradeStore = new ConcurrentHashMap<>();
+    private final SecurityDictionary dictionary;
+    private final TradeJournal journal;
+
+    public TradeStore(@Value("${trade.store.journal.enabled:false}") boolean journalEnabled,
+                      @Value("${trade.store.journal.directory:data/journal}") Path journalDirectory,
+                      @Value("${trade.store.journal.segment-size:64MB}") DataSize segmentSize,
+                      SecurityDictionary dictionary) throws IOException {
+        this.dictionary = dictionary;
+        this.journal = journalEnabled ? new TradeJournal(journalDirectory, segmentBytes(segmentSize)) : null;
+    }
+
+    /** A segment is a single mapped buffer, which Java indexes by {@code int}. */
+    private static int segmentBytes(DataSize segmentSize) {
+        long bytes = segmentSize.toBytes();
+        if (bytes <= 0 || bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("trade.store.journal.segment-size must be between 1B and "
+                    + Integer.MAX_VALUE + "B, was " + segmentSize);
+        }
+        return (int) bytes;
+    }
+
     public String store(CanonicalTrade trade) {        
-        String id = UUID.randomUUID().toString();
+        UUID uuid = UUID.randomUUID();
+        String id = uuid.toString();
         trade.setCanonicalId(id);
+        if (journal != null) {
+            log.info("Received and storing new Trade in journal");
+            try {
+                journal.append(uuid, trade);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not append trade to journal.", e);
+            }
+            return id;
+        }
         log.info("Received and storing new Trade in ConcurrentHashMap");
-        canonicalTradeStore.put(id, trade);
+        canonicalTradeStore.put(id, CompactTrade.from(trade, dictionary));
         return id;
     }
   
     public CanonicalTrade get(String id) {
-        return canonicalTradeStore.get(id);
+        if (journal != null) {
+            try {
+                return journal.read(UUID.fromString(id));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        CompactTrade compact = canonicalTradeStore.get(id);
+        if (compact == null) {
+            return null;
+        }
+        CanonicalTrade trade = compact.toCanonicalTrade(dictionary);
+        trade.setCanonicalId(id);
+        return trade;
     }    
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+    }
     
 }
\ No newline at end of file
@@ -0,0 +1,180 @@
+package com.example.instructions.service;
+
+import com.example.instructions.model.UploadJobStatus;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs file uploads as background jobs.
+ * <p>
+ * An upload is spooled to {@code trade.upload.spool-directory} and the request returns a job ID straight away.
+ * Each job gets its own virtual thread, but at most {@code trade.upload.max-concurrent-jobs} of them parse at
+ * the same time; the rest wait in submission order. Running jobs feed the shared {@link TradePipeline} lanes, so
+ * a large file competes for workers one record at a time instead of holding them for its whole length. The files
+ * of a spooled {@code .zip} are read from the spool file directly, several at a time.
+ */
+@Service
+public class UploadJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(UploadJobService.class);
+
+    private final TradeService tradeService;
+    private final Path spoolDirectory;
+    private final int retainedJobs;
+    private final Semaphore runningJobs;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Clock clock = Clock.systemUTC();
+
+    private final Map<String, UploadJob> jobs = new ConcurrentHashMap<>();
+    private final Queue<String> jobOrder = new ConcurrentLinkedQueue<>();
+
+    public UploadJobService(TradeService tradeService,
+                            @Value("${trade.upload.spool-directory:${java.io.tmpdir}/trade-uploads}") Path spoolDirectory,
+                            @Value("${trade.upload.max-concurrent-jobs:2}") int maxConcurrentJobs,
+                            @Value("${trade.upload.retained-jobs:1000}") int retainedJobs) throws IOException {
+        this.tradeService = tradeService;
+        this.spoolDirectory = Files.createDirectories(spoolDirectory);
+        this.runningJobs = new Semaphore(maxConcurrentJobs, true);
+        this.retainedJobs = retainedJobs;
+    }
+
+    /**
+     * Spools the upload and queues it for processing.
+     *
+     * @throws IllegalArgumentException if the file is empty or of an unsupported type
+     */
+    public UploadJobStatus submit(MultipartFile file) {
+        String fileName = file.getOriginalFilename();
+        if (file.isEmpty() || fileName == null) {
+            throw new IllegalArgumentException("File cannot be empty.");
+        }
+        TradeService.checkSupportedFile(fileName);
+
+        String jobId = UUID.randomUUID().toString();
+        Path spooled = spoolDirectory.resolve(jobId);
+        try {
+            file.transferTo(spooled);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not spool upload to " + spooled, e);
+        }
+
+        UploadJob job = new UploadJob(jobId, fileName, clock.instant(), tradeService.newProgress(jobId));
+        jobs.put(jobId, job);
+        jobOrder.add(jobId);
+        evictFinishedJobs();
+        executor.execute(() -> run(job, spooled));
+        log.info("Accepted upload {} as job {}", fileName, jobId);
+        return job.status(clock.instant());
+    }
+
+    public UploadJobStatus status(String jobId) {
+        UploadJob job = jobs.get(jobId);
+        return job != null ? job.status(clock.instant()) : null;
+    }
+
+    private void run(UploadJob job, Path spooled) {
+        runningJobs.acquireUninterruptibly();
+        UploadJobStatus.State outcome = UploadJobStatus.State.COMPLETED;
+        String error = null;
+        try {
+            job.startedAt = clock.instant();
+            job.state = UploadJobStatus.State.RUNNING;
+            int count = tradeService.processFile(job.fileName, spooled, job.progress);
+            log.info("Job {} finished: {} records from {}", job.jobId, count, job.fileName);
+        } catch (Exception e) {
+            outcome = UploadJobStatus.State.FAILED;
+            error = e.getMessage();
+            log.error("Job {} failed for file {}: {}", job.jobId, job.fileName, e.getMessage(), e);
+        } finally {
+            // Normally done by the upload itself; repeated for a spool file that could not even be opened.
+            job.progress.finish();
+            runningJobs.release();
+            try {
+                Files.deleteIfExists(spooled);
+            } catch (IOException e) {
+                log.warn("Could not delete spooled upload {}: {}", spooled, e.getMessage());
+            }
+        }
+        // Only once the spool file is gone, so a finished job has nothing left on disk.
+        job.finish(outcome, error, clock.instant());
+    }
+
+    /** Forgets the oldest finished jobs once more than {@code retained-jobs} are known. */
+    private void evictFinishedJobs() {
+        for (String jobId : jobOrder) {
+            if (jobs.size() <= retainedJobs) {
+                return;
+            }
+            UploadJob job = jobs.get(jobId);
+            if (job == null || job.finishedAt != null) {
+                jobs.remove(jobId);
+                jobOrder.remove(jobId);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static final class UploadJob {
+
+        final String jobId;
+        final String fileName;
+        final Instant submittedAt;
+        final IngestionProgress progress;
+        volatile UploadJobStatus.State state = UploadJobStatus.State.QUEUED;
+        volatile Instant startedAt;
+        volatile Instant finishedAt;
+        volatile String error;
+
+        UploadJob(String jobId, String fileName, Instant submittedAt, IngestionProgress progress) {
+            this.jobId = jobId;
+            this.fileName = fileName;
+            this.submittedAt = submittedAt;
+            this.progress = progress;
+        }
+
+        void finish(UploadJobStatus.State finalState, String failure, Instant now) {
+            error = failure;
+            finishedAt = now;
+            state = finalState;
+        }
+
+        UploadJobStatus status(Instant now) {
+            UploadJobStatus.State current = state;
+            Instant started = startedAt;
+            Instant finished = finishedAt;
+            double rate = 0;
+            if (started != null) {
+                long millis = Duration.between(started, finished != null ? finished : now).toMillis();
+                rate = millis > 0 ? progress.completed() * 1000.0 / millis : 0;
+            }
+            return new UploadJobStatus(jobId, fileName, current, progress.read(), progress.published(),
+                    progress.rejected(), progress.failed(), progress.rejections(),
+                    progress.rejectsReportId(), progress.entries(), rate, submittedAt,
+                    started, finished, error);
+        }
+    }
+}
@@ -0,0 +1,442 @@
+package com.example.instructions.util;
+
+import com.example.instructions.model.CanonicalTrade;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Reads {@link CanonicalTrade}s from a CSV upload with the same results as binding it through the {@link CsvMapper}
+ * with a header schema, but several times faster for the usual layout.
+ * <p>
+ * When every header column is one of the seven canonical fields, rows are split and parsed straight from a byte
+ * buffer: ASCII text, plain integers, plain decimals and {@code yyyy-MM-ddTHH:mm:ss[.fraction]} timestamps are
+ * converted without intermediate strings. Anything else is left to Jackson so the outcome never differs:
+ * <ul>
+ *   <li>an unknown header goes through the {@link CsvMapper} from the start;</li>
+ *   <li>a row with a field in any other form (spaces, a sign, an exponent, a zone, too many columns) is bound by
+ *       Jackson on its own;</li>
+ *   <li>from the first quote or bare carriage return on, which can make a record span lines, the rest of the file
+ *       goes through Jackson.</li>
+ * </ul>
+ */
+public final class CsvTradeReader implements Closeable {
+
+    private static final String[] FIELDS = {
+        "account_number", "security_id", "trade_type", "quantity", "price", "amount", "timestamp"
+    };
+    private static final int ACCOUNT = 0;
+    private static final int SECURITY = 1;
+    private static final int TRADE_TYPE = 2;
+    private static final int QUANTITY = 3;
+    private static final int PRICE = 4;
+    private static final int AMOUNT = 5;
+    private static final int TIMESTAMP = 6;
+
+    private static final String[] TRADE_TYPES = {"B", "S", "BUY", "SELL"};
+    private static final int MAX_LONG_DIGITS = 18;
+    private static final Object UNPARSED = new Object();
+
+    private final InputStream in;
+    private final CsvMapper csvMapper;
+    private byte[] buf = new byte[64 * 1024];
+    private int pos;
+    private int limit;
+    private boolean eof;
+
+    private int[] columns;
+    private ObjectReader rowReader;
+    private MappingIterator<CanonicalTrade> jackson;
+    private long jacksonLineOffset;
+    private long jacksonFirstLine;
+    private long nextLine = 1;
+    private long line;
+
+    private CsvTradeReader(InputStream in, CsvMapper csvMapper) {
+        this.in = in;
+        this.csvMapper = csvMapper;
+    }
+
+    /**
+     * Reads the header and chooses the fast path or the {@link CsvMapper} for the file.
+     */
+    public static CsvTradeReader open(InputStream in, CsvMapper csvMapper) throws IOException {
+        CsvTradeReader reader = new CsvTradeReader(in, csvMapper);
+        reader.readHeader();
+        return reader;
+    }
+
+    /**
+     * @return the next trade, or {@code null} at the end of the file
+     */
+    public CanonicalTrade next() throws IOException {
+        if (jackson != null) {
+            return nextFromJackson();
+        }
+        int end = findLineEnd();
+        if (end < 0) {
+            return null;
+        }
+        int start = pos;
+        line = nextLine++;
+        int contentEnd = end > start && buf[end - 1] == '\r' ? end - 1 : end;
+        pos = end < limit ? end + 1 : end;
+
+        if (indexOf('"', start, contentEnd) >= 0 || indexOf('\r', start, contentEnd) >= 0) {
+            switchToJackson(start, rowReader(), line - 1);
+            jacksonFirstLine = line;
+            return nextFromJackson();
+        }
+        CanonicalTrade trade = parseRow(start, contentEnd);
+        return trade != null ? trade : bindRow(start, contentEnd);
+    }
+
+    /**
+     * @return the line of the file on which the trade last returned by {@link #next} starts
+     */
+    public long line() {
+        return line;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (jackson != null) {
+            jackson.close();
+        }
+        in.close();
+    }
+
+    private void readHeader() throws IOException {
+        int end = findLineEnd();
+        if (end < 0) {
+            switchToJackson(0, headerReader(), 0);
+            return;
+        }
+        int contentEnd = end > pos && buf[end - 1] == '\r' ? end - 1 : end;
+        int[] mapped = mapHeader(pos, contentEnd);
+        if (mapped == null) {
+            switchToJackson(0, headerReader(), 0);
+            return;
+        }
+        columns = mapped;
+        pos = end < limit ? end + 1 : end;
+        nextLine = 2;
+    }
+
+    /** @return the field of each column, or {@code null} if the header is not made of canonical field names */
+    private int[] mapHeader(int start, int end) {
+        if (indexOf('"', start, end) >= 0 || indexOf('\r', start, end) >= 0 || end == start) {
+            return null;
+        }
+        String header = new String(buf, start, end - start, StandardCharsets.UTF_8);
+        if (header.startsWith("\uFEFF")) {
+            header = header.substring(1);
+        }
+        String[] names = header.split(",", -1);
+        int[] mapped = new int[names.length];
+        boolean[] seen = new boolean[FIELDS.length];
+        for (int i = 0; i < names.length; i++) {
+            int field = Arrays.asList(FIELDS).indexOf(names[i].trim());
+            if (field < 0 || seen[field]) {
+                return null;
+            }
+            seen[field] = true;
+            mapped[i] = field;
+        }
+        return mapped;
+    }
+
+    /**
+     * @return the trade, or {@code null} if a field is not in a form this parser handles
+     */
+    private CanonicalTrade parseRow(int start, int end) {
+        CanonicalTrade trade = new CanonicalTrade();
+        int column = 0;
+        int fieldStart = start;
+        while (true) {
+            int fieldEnd = indexOf(',', fieldStart, end);
+            if (fieldEnd < 0) {
+                fieldEnd = end;
+            }
+            if (column == columns.length || !set(trade, columns[column], fieldStart, fieldEnd)) {
+                return null;
+            }
+            column++;
+            if (fieldEnd == end) {
+                return trade;
+            }
+            fieldStart = fieldEnd + 1;
+        }
+    }
+
+    private boolean set(CanonicalTrade trade, int field, int start, int end) {
+        switch (field) {
+            case ACCOUNT, SECURITY, TRADE_TYPE -> {
+                String value = field == TRADE_TYPE ? tradeType(start, end) : ascii(start, end);
+                if (value == null) {
+                    return false;
+                }
+                if (field == ACCOUNT) {
+                    trade.setAccountNumber(value);
+                } else if (field == SECURITY) {
+                    trade.setSecurityId(value);
+                } else {
+                    trade.setTradeType(value);
+                }
+            }
+            case QUANTITY -> {
+                if (start == end) {
+                    return true;
+                }
+                long value = parseLong(start, end);
+                if (value == Long.MIN_VALUE) {
+                    return false;
+                }
+                trade.setQuantity(value);
+            }
+            case PRICE, AMOUNT -> {
+                Object value = start == end ? null : parseDecimal(start, end);
+                if (value == UNPARSED) {
+                    return false;
+                }
+                if (field == PRICE) {
+                    trade.setPrice((BigDecimal) value);
+                } else {
+                    trade.setAmount((BigDecimal) value);
+                }
+            }
+            case TIMESTAMP -> {
+                Object value = start == end ? null : parseTimestamp(start, end);
+                if (value == UNPARSED) {
+                    return false;
+                }
+                trade.setTimestamp((LocalDateTime) value);
+            }
+            default -> throw new IllegalStateException("Unknown field " + field);
+        }
+        return true;
+    }
+
+    /** @return the field as a string, or {@code null} if it is not ASCII and decoding is left to Jackson */
+    private String ascii(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (buf[i] < 0) {
+                return null;
+            }
+        }
+        // The Latin-1 decoder copies ASCII bytes straight into a compact string.
+        return new String(buf, start, end - start, StandardCharsets.ISO_8859_1);
+    }
+
+    private String tradeType(int start, int end) {
+        for (String type : TRADE_TYPES) {
+            if (matches(type, start, end)) {
+                return type;
+            }
+        }
+        return ascii(start, end);
+    }
+
+    private boolean matches(String expected, int start, int end) {
+        if (end - start != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            if (buf[start + i] != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** @return the value of {@code -?[0-9]{1,18}}, or {@link Long#MIN_VALUE} for any other form */
+    private long parseLong(int start, int end) {
+        boolean negative = buf[start] == '-';
+        int i = negative ? start + 1 : start;
+        if (i == end || end - i > MAX_LONG_DIGITS) {
+            return Long.MIN_VALUE;
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buf[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return Long.MIN_VALUE;
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /** @return the value of {@code -?[0-9]+(\.[0-9]+)?} with at most 18 digits, or {@link #UNPARSED} */
+    private Object parseDecimal(int start, int end) {
+        boolean negative = buf[start] == '-';
+        int i = negative ? start + 1 : start;
+        long unscaled = 0;
+        int digits = 0;
+        int scale = -1;
+        for (; i < end; i++) {
+            byte b = buf[i];
+            if (b == '.' && scale < 0 && digits > 0) {
+                scale = 0;
+                continue;
+            }
+            int digit = b - '0';
+            if (digit < 0 || digit > 9 || ++digits > MAX_LONG_DIGITS) {
+                return UNPARSED;
+            }
+            unscaled = unscaled * 10 + digit;
+            if (scale >= 0) {
+                scale++;
+            }
+        }
+        if (digits == 0 || scale == 0) {
+            return UNPARSED;
+        }
+        return BigDecimal.valueOf(negative ? -unscaled : unscaled, Math.max(scale, 0));
+    }
+
+    /** @return the value of {@code yyyy-MM-ddTHH:mm:ss} with an optional 1-9 digit fraction, or {@link #UNPARSED} */
+    private Object parseTimestamp(int start, int end) {
+        int length = end - start;
+        if (length != 19 && (length < 21 || length > 29 || buf[start + 19] != '.')) {
+            return UNPARSED;
+        }
+        if (buf[start + 4] != '-' || buf[start + 7] != '-' || buf[start + 10] != 'T' || buf[start + 13] != ':'
+                || buf[start + 16] != ':') {
+            return UNPARSED;
+        }
+        int year = digits(start, 4);
+        int month = digits(start + 5, 2);
+        int day = digits(start + 8, 2);
+        int hour = digits(start + 11, 2);
+        int minute = digits(start + 14, 2);
+        int second = digits(start + 17, 2);
+        int nanos = 0;
+        if (length > 19) {
+            nanos = digits(start + 20, length - 20);
+            for (int i = length - 20; i < 9 && nanos >= 0; i++) {
+                nanos *= 10;
+            }
+        }
+        if ((year | month | day | hour | minute | second | nanos) < 0) {
+            return UNPARSED;
+        }
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute, second, nanos);
+        } catch (DateTimeException e) {
+            return UNPARSED; // let Jackson report it
+        }
+    }
+
+    /** @return the value of {@code count} decimal digits, or -1 if any is not a digit */
+    private int digits(int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = buf[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /** Binds one row that the fast path does not handle, exactly as the header-schema reader would. */
+    private CanonicalTrade bindRow(int start, int end) throws IOException {
+        try (MappingIterator<CanonicalTrade> row = rowReader().readValues(buf, start, end - start)) {
+            return row.hasNext() ? row.next() : new CanonicalTrade();
+        }
+    }
+
+    private CanonicalTrade nextFromJackson() throws IOException {
+        if (!jackson.hasNext()) {
+            return null;
+        }
+        if (jacksonFirstLine > 0) {
+            // a header-less parser does not report a location for its first row
+            line = jacksonFirstLine;
+            jacksonFirstLine = 0;
+        } else {
+            // The CSV parser counts rows from 0.
+            line = jackson.getParser().currentTokenLocation().getLineNr() + 1 + jacksonLineOffset;
+        }
+        return jackson.next();
+    }
+
+    /** Hands the buffered bytes from {@code start} and the rest of the stream to {@code reader}. */
+    private void switchToJackson(int start, ObjectReader reader, long lineOffset) throws IOException {
+        InputStream rest = new SequenceInputStream(new ByteArrayInputStream(buf, start, limit - start), in);
+        jackson = reader.readValues(rest);
+        jacksonLineOffset = lineOffset;
+    }
+
+    private ObjectReader headerReader() {
+        return csvMapper.readerFor(CanonicalTrade.class).with(CsvSchema.emptySchema().withHeader());
+    }
+
+    private ObjectReader rowReader() {
+        if (rowReader == null) {
+            CsvSchema.Builder schema = CsvSchema.builder();
+            for (int field : columns) {
+                schema.addColumn(FIELDS[field]);
+            }
+            rowReader = csvMapper.readerFor(CanonicalTrade.class).with(schema.build());
+        }
+        return rowReader;
+    }
+
+    /**
+     * Makes sure a whole line starting at {@link #pos} is buffered, growing the buffer for long lines.
+     *
+     * @return the index of its {@code '\n'}, {@link #limit} for a last line without one, or -1 at the end
+     */
+    private int findLineEnd() throws IOException {
+        int scanned = pos;
+        while (true) {
+            int newline = indexOf('\n', scanned, limit);
+            if (newline >= 0) {
+                return newline;
+            }
+            scanned = limit;
+            if (eof) {
+                return pos < limit ? limit : -1;
+            }
+            if (pos > 0) {
+                System.arraycopy(buf, pos, buf, 0, limit - pos);
+                scanned -= pos;
+                limit -= pos;
+                pos = 0;
+            }
+            if (limit == buf.length) {
+                buf = Arrays.copyOf(buf, buf.length * 2);
+            }
+            int n = in.read(buf, limit, buf.length - limit);
+            if (n < 0) {
+                eof = true;
+            } else {
+                limit += n;
+            }
+        }
+    }
+
+    private int indexOf(char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buf[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.instructions.util;
+
+import java.util.List;
+
+/**
+ * The platforms every accepted trade is published to, in configuration order.
+ */
+public record PlatformRoutes(List<PlatformRules> platforms) {
+
+    public PlatformRoutes {
+        if (platforms.isEmpty()) {
+            throw new IllegalArgumentException("At least one platform is required");
+        }
+        platforms = List.copyOf(platforms);
+    }
+
+    /** One platform with the default rules, as before fan-out was configurable. */
+    public static PlatformRoutes single(String id, String topic) {
+        return new PlatformRoutes(List.of(PlatformRules.defaults(id, topic)));
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.instructions.util;
+
+import com.example.instructions.model.PlatformTrade;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * How trades are shaped for one downstream platform, resolved once at startup.
+ * <p>
+ * {@link TradeTransformer} does the work every platform shares, validating and normalizing the security ID and
+ * reducing the trade type to {@code B}, {@code S} or {@code U}. {@link #apply} then only picks the account form and
+ * looks the type label up in a three-entry table. A platform with the default rules gets the shared
+ * {@link PlatformTrade} itself.
+ */
+public final class PlatformRules {
+
+    /** How the account number appears in the platform's trades. */
+    public enum AccountMask {
+        /** All but the last four digits masked, as {@link TradeTransformer} does. */
+        LAST_FOUR,
+        /** Fully masked. */
+        FULL,
+        /** Sent as received. */
+        NONE
+    }
+
+    private static final String FULL_MASK = "****";
+    private static final String[] TYPE_CODES = {"B", "S", "U"};
+
+    private final String id;
+    private final String topic;
+    private final AccountMask accountMask;
+    private final String[] typeLabels;
+    private final boolean defaults;
+
+    /**
+     * @param tradeTypes label per normalized type code ({@code B}, {@code S}, {@code U}); codes not listed keep
+     *                   their code as label
+     * @throws IllegalArgumentException if the ID or topic is blank, or a type code is unknown
+     */
+    public PlatformRules(String id, String topic, AccountMask accountMask, Map<String, String> tradeTypes) {
+        if (id == null || id.isBlank() || topic == null || topic.isBlank()) {
+            throw new IllegalArgumentException("A platform needs an id and a topic, got id=" + id + ", topic=" + topic);
+        }
+        this.id = id;
+        this.topic = topic;
+        this.accountMask = accountMask != null ? accountMask : AccountMask.LAST_FOUR;
+        this.typeLabels = TYPE_CODES.clone();
+        if (tradeTypes != null) {
+            tradeTypes.forEach((code, label) -> typeLabels[typeIndex(code.toUpperCase(Locale.ROOT), id)] = label);
+        }
+        boolean identityTypes = true;
+        for (int i = 0; i < TYPE_CODES.length; i++) {
+            identityTypes &= TYPE_CODES[i].equals(typeLabels[i]);
+        }
+        this.defaults = this.accountMask == AccountMask.LAST_FOUR && identityTypes;
+    }
+
+    /** The default rules: account masked to its last four digits, type codes as they are. */
+    public static PlatformRules defaults(String id, String topic) {
+        return new PlatformRules(id, topic, AccountMask.LAST_FOUR, Map.of());
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public String topic() {
+        return topic;
+    }
+
+    /**
+     * @param shared        the trade as {@link TradeTransformer#transformToPlatformTrade} made it
+     * @param accountNumber the account number as received
+     * @return the trade for this platform; {@code shared} itself under the default rules
+     */
+    public PlatformTrade apply(PlatformTrade shared, String accountNumber) {
+        if (defaults) {
+            return shared;
+        }
+        String account = switch (accountMask) {
+            case LAST_FOUR -> shared.getAccount();
+            case FULL -> FULL_MASK;
+            case NONE -> accountNumber;
+        };
+        return new PlatformTrade(account, shared.getSecurity(), typeLabels[typeIndex(shared.getType(), id)],
+                shared.getAmount(), shared.getTimestamp());
+    }
+
+    private static int typeIndex(String code, String platform) {
+        return switch (code) {
+            case "B" -> 0;
+            case "S" -> 1;
+            case "U" -> 2;
+            default -> throw new IllegalArgumentException(
+                    "Unknown trade type code " + code + " for platform " + platform + "; expected B, S or U");
+        };
+    }
+}
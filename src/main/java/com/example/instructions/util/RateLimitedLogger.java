@@ -0,0 +1,59 @@
+package com.example.instructions.util;
+
+import org.slf4j.Logger;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Emits at most one warning per interval for a recurring condition and reports how many were suppressed in
+ * between, so a bad upload cannot flood the log with one line per trade.
+ */
+public class RateLimitedLogger {
+
+    private final Logger log;
+    private final long intervalNanos;
+    private final AtomicLong nextAllowedAt;
+    private final LongAdder suppressed = new LongAdder();
+
+    public RateLimitedLogger(Logger log, Duration interval) {
+        this.log = log;
+        this.intervalNanos = interval.toNanos();
+        this.nextAllowedAt = new AtomicLong(System.nanoTime());
+    }
+
+    public void warn(String message) {
+        long skipped = acquire();
+        if (skipped > 0) {
+            log.warn(message + " ({} similar warnings suppressed)", skipped);
+        } else if (skipped == 0) {
+            log.warn(message);
+        }
+    }
+
+    public void warn(String format, Object arg) {
+        long skipped = acquire();
+        if (skipped > 0) {
+            log.warn(format + " ({} similar warnings suppressed)", arg, skipped);
+        } else if (skipped == 0) {
+            log.warn(format, arg);
+        }
+    }
+
+    /**
+     * @return the number of warnings suppressed since the last one logged, or -1 if this one is suppressed
+     */
+    private long acquire() {
+        if (!log.isWarnEnabled()) {
+            return -1;
+        }
+        long now = System.nanoTime();
+        long allowedAt = nextAllowedAt.get();
+        if (now - allowedAt < 0 || !nextAllowedAt.compareAndSet(allowedAt, now + intervalNanos)) {
+            suppressed.increment();
+            return -1;
+        }
+        return suppressed.sumThenReset();
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.instructions.util;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assigns small integer codes to security IDs so retained trades can hold an {@code int} instead of their own
+ * copy of the string. Codes are never reused; once {@link #MAX_CODES} distinct IDs have been seen, new IDs get
+ * {@link #NO_CODE} and callers keep the string instead.
+ */
+@Component
+public class SecurityDictionary {
+
+    public static final int NO_CODE = -1;
+    static final int MAX_CODES = 1 << 20;
+
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[1024];
+    private int size;
+
+    public int encode(String securityId) {
+        Integer code = codes.get(securityId);
+        return code != null ? code : register(securityId);
+    }
+
+    public String decode(int code) {
+        String[] snapshot = names;
+        return code >= 0 && code < snapshot.length ? snapshot[code] : null;
+    }
+
+    public int size() {
+        return codes.size();
+    }
+
+    private synchronized int register(String securityId) {
+        Integer existing = codes.get(securityId);
+        if (existing != null) {
+            return existing;
+        }
+        if (size == MAX_CODES) {
+            return NO_CODE;
+        }
+        String[] current = names;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, size * 2);
+        }
+        int code = size++;
+        current[code] = securityId;
+        // Publish the name before the code becomes visible through the map.
+        names = current;
+        codes.put(securityId, code);
+        return code;
+    }
+}
@@ -2,26 +2,77 @@ package com.example.instructions.util;
 
 import com.example.instructions.model.CanonicalTrade;
 import com.example.instructions.model.PlatformTrade;
+import com.example.instructions.model.RejectionReason;
 
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.regex.Pattern;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Maps canonical trades to the platform format.
+ * <p>
+ * The checks work on characters rather than regexes and temporary strings, so a trade whose fields are already
+ * in canonical form is transformed without allocating anything beyond the {@link PlatformTrade}. Masked account
+ * numbers come from a table keyed by the last four digits, and each raw security ID is normalized and validated
+ * once and then served from a bounded cache. Warnings about bad input are rate-limited.
+ */
 @Component
 @Slf4j
 public class TradeTransformer {
 
-    private static final Pattern SECURITY_ID_PATTERN = Pattern.compile("^[A-Z0-9]{3,}$");
-   
+    private static final String FULL_MASK = "****";
+    private static final Duration WARNING_INTERVAL = Duration.ofSeconds(10);
+
+    private final String[] maskedByLastFour = new String[10_000];
+    private final ConcurrentHashMap<String, SecurityId> securityIds;
+    private final int securityCacheSize;
+
+    private final RateLimitedLogger accountWarnings = new RateLimitedLogger(log, WARNING_INTERVAL);
+    private final RateLimitedLogger securityWarnings = new RateLimitedLogger(log, WARNING_INTERVAL);
+    private final RateLimitedLogger tradeTypeWarnings = new RateLimitedLogger(log, WARNING_INTERVAL);
+
+    public TradeTransformer() {
+        this(4096);
+    }
+
+    @Autowired
+    public TradeTransformer(@Value("${trade.transformer.security-cache-size:4096}") int securityCacheSize) {
+        this.securityCacheSize = securityCacheSize;
+        this.securityIds = new ConcurrentHashMap<>(Math.max(16, securityCacheSize * 4 / 3 + 1));
+    }
+
+    /**
+     * Checks the fields the transformation cannot do without, without throwing.
+     *
+     * @return why the trade cannot be transformed, or {@code null} if it can
+     */
+    public RejectionReason validate(CanonicalTrade canonicalTrade) {
+        if (canonicalTrade == null || canonicalTrade.getAccountNumber() == null
+                || canonicalTrade.getAccountNumber().isEmpty()) {
+            return RejectionReason.MISSING_ACCOUNT;
+        }
+        String securityId = canonicalTrade.getSecurityId();
+        if (securityId == null || securityId.isBlank()) {
+            return RejectionReason.MISSING_SECURITY_ID;
+        }
+        return null;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the security ID is blank; {@link #validate} reports this without throwing
+     */
     public PlatformTrade transformToPlatformTrade(CanonicalTrade canonicalTrade) {
         // 1. Mask account_number
         String maskedAccount = maskAccountNumber(canonicalTrade.getAccountNumber());
 
         // 2. validate format
         String validatedSecurityId = validateAndFormatSecurityId(canonicalTrade.getSecurityId());
-        
+
         // 3. Normalize trade_type
         String normalizedTradeType = normalizeTradeType(canonicalTrade.getTradeType());
 
@@ -33,37 +84,108 @@ public class TradeTransformer {
             canonicalTrade.getTimestamp()
         );
     }
- 
+
     private String maskAccountNumber(String accountNumber) {
         if (accountNumber == null || accountNumber.length() <= 4) {
-            log.warn("Account number is too short or null. Masking fully.");
-            return "****"; 
+            accountWarnings.warn("Account number is too short or null. Masking fully.");
+            return FULL_MASK;
         }
         // Mask all but the last 4 digits
-        return "****" + accountNumber.substring(accountNumber.length() - 4);
+        int lastFour = 0;
+        for (int i = accountNumber.length() - 4; i < accountNumber.length(); i++) {
+            int digit = accountNumber.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return FULL_MASK + accountNumber.substring(accountNumber.length() - 4);
+            }
+            lastFour = lastFour * 10 + digit;
+        }
+        // Racy fill is fine: strings are immutable and any thread's copy is equal.
+        String masked = maskedByLastFour[lastFour];
+        if (masked == null) {
+            masked = FULL_MASK + accountNumber.substring(accountNumber.length() - 4);
+            maskedByLastFour[lastFour] = masked;
+        }
+        return masked;
     }
-    
+
     private String validateAndFormatSecurityId(String securityId) {
         if (securityId == null || securityId.isBlank()) {
              throw new IllegalArgumentException("Security ID cannot be empty.");
         }
-        String upperCaseId = securityId.toUpperCase();
-        if (!SECURITY_ID_PATTERN.matcher(upperCaseId).matches()) {             
-             log.warn("Security ID format validation warning for: {}", upperCaseId);             
+        SecurityId normalized = securityIds.get(securityId);
+        if (normalized == null) {
+            normalized = normalizeSecurityId(securityId);
+            // Stop admitting once full; the symbol universe is small and stable, so the working set fits.
+            if (securityIds.size() < securityCacheSize) {
+                securityIds.putIfAbsent(securityId, normalized);
+            }
+        }
+        if (!normalized.valid()) {
+             securityWarnings.warn("Security ID format validation warning for: {}", normalized.value());
         }
-        return upperCaseId;
+        return normalized.value();
     }
-  
+
+    private static SecurityId normalizeSecurityId(String securityId) {
+        boolean alreadyUpperCase = true;
+        for (int i = 0; i < securityId.length() && alreadyUpperCase; i++) {
+            char c = securityId.charAt(i);
+            alreadyUpperCase = c < 0x80 && (c < 'a' || c > 'z');
+        }
+        // Plain ASCII without lower case is returned as-is; anything else goes through toUpperCase as before.
+        String upperCaseId = alreadyUpperCase ? securityId : securityId.toUpperCase();
+        return new SecurityId(upperCaseId, isValidSecurityId(upperCaseId));
+    }
+
+    /**
+     * Same rule as {@code ^[A-Z0-9]{3,}$}.
+     */
+    private static boolean isValidSecurityId(String id) {
+        if (id.length() < 3) {
+            return false;
+        }
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (!(c >= 'A' && c <= 'Z') && !(c >= '0' && c <= '9')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private String normalizeTradeType(String tradeType) {
         if (tradeType == null) return "U";
-        String normalized = tradeType.toUpperCase().trim();
-        return switch (normalized) {
-            case "BUY", "B" -> "B";
-            case "SELL", "S" -> "S";
-            default -> {
-                log.warn("Unknown trade type encountered: {}", tradeType);
-                yield "U";
+        // Equivalent to switching on tradeType.toUpperCase().trim() without building either string.
+        int start = 0;
+        int end = tradeType.length();
+        while (start < end && tradeType.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && tradeType.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (matchesUpperCase(tradeType, start, end, "BUY") || matchesUpperCase(tradeType, start, end, "B")) {
+            return "B";
+        }
+        if (matchesUpperCase(tradeType, start, end, "SELL") || matchesUpperCase(tradeType, start, end, "S")) {
+            return "S";
+        }
+        tradeTypeWarnings.warn("Unknown trade type encountered: {}", tradeType);
+        return "U";
+    }
+
+    private static boolean matchesUpperCase(String value, int start, int end, String expected) {
+        if (end - start != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            if (Character.toUpperCase(value.charAt(start + i)) != expected.charAt(i)) {
+                return false;
             }
-        };
+        }
+        return true;
+    }
+
+    private record SecurityId(String value, boolean valid) {
     }
-}
\ No newline at end of file
+}
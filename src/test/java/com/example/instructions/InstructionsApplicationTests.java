@@ -7,8 +7,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value; 
 import org.springframework.context.annotation.Lazy; 
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.kafka.core.KafkaTemplate; 
 import org.springframework.kafka.test.context.EmbeddedKafka;
@@ -21,15 +21,11 @@ import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 
-import org.apache.kafka.clients.producer.ProducerConfig; 
-import org.springframework.kafka.core.ProducerFactory;
-import org.springframework.kafka.core.DefaultKafkaProducerFactory;
-import org.springframework.kafka.support.serializer.JsonSerializer;
-import org.apache.kafka.common.serialization.StringSerializer;
-
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
@@ -37,8 +33,9 @@ import org.springframework.kafka.support.serializer.JsonDeserializer;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory; // <-- Crucial for Listener Activation
 import org.apache.kafka.common.serialization.StringDeserializer;
 
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule; 
 
 @ActiveProfiles("local")
 @SpringBootTest
@@ -56,15 +53,21 @@ import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 })
 class InstructionsApplicationTests {
 
+    // The application's own byte[] template; trades are encoded with the application's ObjectMapper.
     @Autowired
-    private KafkaTemplate<String, CanonicalTrade> kafkaTemplate;
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
 
     @Autowired
     private TradeService tradeServiceSpy; 
     
     private final String INBOUND_TOPIC = "instructions.inbound"; 
     
-    @Configuration
+    // Added to the application context rather than replacing it, so the Kafka listener runs. The producer and
+    // ObjectMapper come from the application: its publisher needs the byte[] template.
+    @TestConfiguration
     static class TestConfig {
         
         
@@ -74,36 +77,6 @@ class InstructionsApplicationTests {
             return Mockito.spy(realTradeService);
         }
 
-        @Bean
-        public ObjectMapper objectMapper() {
-            ObjectMapper mapper = new ObjectMapper();
-            mapper.registerModule(new JavaTimeModule()); 
-            return mapper;
-        }
-
-        @Bean
-        public ProducerFactory<String, CanonicalTrade> producerFactory(
-                @Value("${spring.kafka.producer.bootstrap-servers}") String bootstrapServers,
-                ObjectMapper objectMapper) { 
-            
-            Map<String, Object> props = new HashMap<>();
-            props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-            props.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, false); 
-            
-            return new DefaultKafkaProducerFactory<>(
-                props,
-                new StringSerializer(),
-                new JsonSerializer<>(objectMapper)
-            );
-        }
-        
-        @Bean
-        public KafkaTemplate<String, CanonicalTrade> kafkaTemplate(
-                ProducerFactory<String, CanonicalTrade> producerFactory) {
-            
-            return new KafkaTemplate<>(producerFactory);
-        }
-        
         @Bean
         public ConsumerFactory<String, CanonicalTrade> consumerFactory(
                 @Value("${spring.kafka.consumer.bootstrap-servers}") String bootstrapServers) {
@@ -140,7 +113,7 @@ class InstructionsApplicationTests {
     }
 
     @Test
-    void testMessageFlow_ShouldBeProcessedByConsumer() {
+    void testMessageFlow_ShouldBeProcessedByConsumer() throws Exception {
         CanonicalTrade testTrade = new CanonicalTrade(
             "9876543210",               
             "TEST_SIMPLE_SEC",          
@@ -150,7 +123,7 @@ class InstructionsApplicationTests {
             new BigDecimal("10000.00"), 
             LocalDateTime.now()         
         );        
-        kafkaTemplate.send(INBOUND_TOPIC, "SIMPLE-KEY", testTrade);
-        verify(tradeServiceSpy, timeout(10000).times(1)).processTrade(testTrade);
+        kafkaTemplate.send(INBOUND_TOPIC, "SIMPLE-KEY", objectMapper.writeValueAsBytes(testTrade));
+        verify(tradeServiceSpy, timeout(10000).times(1)).processTrade(eq(testTrade), any(ConsumerRecord.class));
     }
-}
\ No newline at end of file
+}
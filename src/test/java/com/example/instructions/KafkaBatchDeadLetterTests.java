@@ -0,0 +1,135 @@
+package com.example.instructions;
+
+import com.example.instructions.config.PayloadFormat;
+import com.example.instructions.model.CanonicalTrade;
+import com.example.instructions.service.TradeService;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.verify;
+
+@ActiveProfiles("local")
+@SpringBootTest
+@EmbeddedKafka(
+    partitions = 1,
+    topics = {"instructions.inbound", "instructions.outbound", "instructions.inbound.dlt"}
+)
+@TestPropertySource(properties = {
+    "spring.kafka.consumer.bootstrap-servers=${spring.embedded.kafka.brokers}",
+    "spring.kafka.producer.bootstrap-servers=${spring.embedded.kafka.brokers}",
+    "spring.kafka.consumer.group-id=dead-letter-test-group",
+    "spring.kafka.listener.poll-timeout=100",
+    "spring.kafka.consumer.auto-offset-reset=earliest",
+    "app.kafka.listener.batch.enabled=true",
+    "app.kafka.listener.batch.retries=1",
+    "app.kafka.listener.batch.retry-interval=100ms",
+    "trade.publish.ack-timeout=500ms"
+})
+class KafkaBatchDeadLetterTests {
+
+    private static final String INBOUND_TOPIC = "instructions.inbound";
+    private static final String DEAD_LETTER_TOPIC = "instructions.inbound.dlt";
+    private static final int TRADES = 3;
+
+    @Autowired
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafka;
+
+    @MockitoSpyBean
+    private TradeService tradeServiceSpy;
+
+    @Test
+    void batchListener_deadLettersBatchWhoseAcknowledgementsNeverArrive() throws Exception {
+        // Sends that are never acknowledged: without the ack timeout the consumer thread would block for good.
+        doReturn(new CompletableFuture<Void>()).when(tradeServiceSpy).processBatch(anyList());
+
+        List<CanonicalTrade> trades = new ArrayList<>();
+        for (int i = 0; i < TRADES; i++) {
+            CanonicalTrade trade = new CanonicalTrade("12121212" + i, "SECDL" + i, "B", 100L,
+                new BigDecimal("100.00"), new BigDecimal("10000.00"), LocalDateTime.of(2025, 8, 4, 9, 0));
+            trades.add(trade);
+            ProducerRecord<String, byte[]> record = new ProducerRecord<>(INBOUND_TOPIC, "KEY-" + i,
+                PayloadFormat.SMILE.newMapper().writeValueAsBytes(trade));
+            record.headers().add(PayloadFormat.HEADER, PayloadFormat.SMILE.headerValue());
+            kafkaTemplate.send(record);
+        }
+        kafkaTemplate.flush();
+
+        await().atMost(Duration.ofSeconds(20)).untilAsserted(() -> {
+            OffsetAndMetadata committed = KafkaTestUtils.getCurrentOffset(
+                embeddedKafka.getBrokersAsString(), "dead-letter-test-group", INBOUND_TOPIC, 0);
+            assertThat(committed).isNotNull();
+            assertThat(committed.offset()).isEqualTo(TRADES);
+        });
+        // The first delivery and one retry.
+        verify(tradeServiceSpy, atLeast(2)).processBatch(anyList());
+
+        List<ConsumerRecord<String, byte[]>> deadLetters = deadLetters();
+        assertThat(deadLetters).hasSize(TRADES);
+        for (int i = 0; i < TRADES; i++) {
+            ConsumerRecord<String, byte[]> deadLetter = deadLetters.get(i);
+            assertThat(deadLetter.key()).isEqualTo("KEY-" + i);
+            PayloadFormat format = PayloadFormat.of(deadLetter.headers().lastHeader(PayloadFormat.HEADER).value());
+            assertThat(format).isEqualTo(PayloadFormat.SMILE);
+            assertThat(format.newMapper().readValue(deadLetter.value(), CanonicalTrade.class))
+                .isEqualTo(trades.get(i));
+            assertThat(header(deadLetter, KafkaHeaders.DLT_ORIGINAL_OFFSET)).isNotNull();
+            assertThat(new String(header(deadLetter, KafkaHeaders.DLT_EXCEPTION_MESSAGE), StandardCharsets.UTF_8))
+                .contains("Timed out after PT0.5S");
+        }
+    }
+
+    private static byte[] header(ConsumerRecord<?, ?> record, String name) {
+        Header header = record.headers().lastHeader(name);
+        return header != null ? header.value() : null;
+    }
+
+    private List<ConsumerRecord<String, byte[]>> deadLetters() {
+        Map<String, Object> props = KafkaTestUtils.consumerProps("dead-letter-reader", "false", embeddedKafka);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        List<ConsumerRecord<String, byte[]>> records = new ArrayList<>();
+        try (Consumer<String, byte[]> consumer =
+                 new KafkaConsumer<>(props, new StringDeserializer(), new ByteArrayDeserializer())) {
+            embeddedKafka.consumeFromAnEmbeddedTopic(consumer, DEAD_LETTER_TOPIC);
+            long deadline = System.nanoTime() + Duration.ofSeconds(3).toNanos();
+            while (System.nanoTime() < deadline) {
+                consumer.poll(Duration.ofMillis(200)).forEach(records::add);
+            }
+        }
+        return records;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.instructions;
+
+import com.example.instructions.model.CanonicalTrade;
+import com.example.instructions.service.TradeService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+@ActiveProfiles("local")
+@SpringBootTest
+@EmbeddedKafka(
+    partitions = 1,
+    topics = {"instructions.inbound", "instructions.outbound"}
+)
+@TestPropertySource(properties = {
+    "spring.kafka.consumer.bootstrap-servers=${spring.embedded.kafka.brokers}",
+    "spring.kafka.producer.bootstrap-servers=${spring.embedded.kafka.brokers}",
+    "spring.kafka.consumer.group-id=batch-test-group",
+    "spring.kafka.listener.poll-timeout=100",
+    "spring.kafka.consumer.auto-offset-reset=earliest",
+    "app.kafka.listener.batch.enabled=true"
+})
+class KafkaBatchListenerTests {
+
+    private static final String INBOUND_TOPIC = "instructions.inbound";
+
+    @Autowired
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafka;
+
+    @MockitoSpyBean
+    private TradeService tradeServiceSpy;
+
+    @Test
+    void batchListener_commitsOffsetsAfterSendsAreAcknowledged() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            CanonicalTrade trade = new CanonicalTrade("98765432" + i, "SEC" + i, "B", 100L,
+                new BigDecimal("100.00"), new BigDecimal("10000.00"), LocalDateTime.now());
+            kafkaTemplate.send(INBOUND_TOPIC, "KEY-" + i, objectMapper.writeValueAsBytes(trade));
+        }
+        kafkaTemplate.flush();
+
+        verify(tradeServiceSpy, timeout(10000).atLeastOnce()).processBatch(anyList());
+        verify(tradeServiceSpy, never()).processTrade(any(), anyLong());
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> {
+            OffsetAndMetadata committed = KafkaTestUtils.getCurrentOffset(
+                embeddedKafka.getBrokersAsString(), "batch-test-group", INBOUND_TOPIC, 0);
+            assertThat(committed).isNotNull();
+            assertThat(committed.offset()).isEqualTo(5);
+        });
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.instructions;
+
+import com.example.instructions.model.CanonicalTrade;
+import com.example.instructions.service.PositionAggregator;
+import com.example.instructions.service.TradeService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+
+@ActiveProfiles("local")
+@SpringBootTest
+@EmbeddedKafka(
+    partitions = 1,
+    topics = {"instructions.inbound", "instructions.outbound"}
+)
+@TestPropertySource(properties = {
+    "spring.kafka.consumer.bootstrap-servers=${spring.embedded.kafka.brokers}",
+    "spring.kafka.producer.bootstrap-servers=${spring.embedded.kafka.brokers}",
+    "spring.kafka.consumer.group-id=transaction-test-group",
+    "spring.kafka.listener.poll-timeout=100",
+    "spring.kafka.consumer.auto-offset-reset=earliest",
+    "spring.kafka.producer.transaction-id-prefix=tx-test-",
+    "spring.kafka.producer.properties.enable.idempotence=true",
+    "app.kafka.listener.batch.enabled=true",
+    "trade.dedup.enabled=true"
+})
+class KafkaTransactionTests {
+
+    private static final String INBOUND_TOPIC = "instructions.inbound";
+    private static final String OUTBOUND_TOPIC = "instructions.outbound";
+    private static final int TRADES = 5;
+
+    @Autowired
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafka;
+
+    @Autowired
+    private PositionAggregator positions;
+
+    @MockitoSpyBean
+    private TradeService tradeServiceSpy;
+
+    @Test
+    void batchFailingAfterItsSendsIsRolledBackAndPublishedOnceOnRedelivery() throws Exception {
+        // The first batch is published, acknowledged by the broker, and then the consumer dies before the
+        // transaction commits.
+        AtomicInteger crashedBatch = new AtomicInteger();
+        doAnswer(invocation -> {
+            CompletableFuture<?> sends = (CompletableFuture<?>) invocation.callRealMethod();
+            if (crashedBatch.compareAndSet(0, invocation.<List<?>>getArgument(0).size())) {
+                sends.join();
+                throw new IllegalStateException("simulated crash before commit");
+            }
+            return sends;
+        }).when(tradeServiceSpy).processBatch(anyList());
+
+        for (int i = 0; i < TRADES; i++) {
+            CanonicalTrade trade = new CanonicalTrade("55555555" + i, "SECTX", "B", 100L,
+                new BigDecimal("100.00"), new BigDecimal("10000.00"), LocalDateTime.of(2025, 8, 4, 9, 0));
+            kafkaTemplate.send(INBOUND_TOPIC, "KEY-" + i, objectMapper.writeValueAsBytes(trade));
+        }
+        kafkaTemplate.flush();
+
+        await().atMost(Duration.ofSeconds(20)).untilAsserted(() -> {
+            OffsetAndMetadata committed = KafkaTestUtils.getCurrentOffset(
+                embeddedKafka.getBrokersAsString(), "transaction-test-group", INBOUND_TOPIC, 0);
+            assertThat(committed).isNotNull();
+            assertThat(committed.offset()).isEqualTo(TRADES);
+        });
+
+        // Redelivered trades were not taken for duplicates, and the aborted attempt moved no position.
+        assertThat(crashedBatch).hasPositiveValue();
+        assertThat(outbound("read_committed")).hasSize(TRADES)
+            .extracting(ConsumerRecord::key).containsOnly("SECTX");
+        assertThat(positions.security("SECTX").trades()).isEqualTo(TRADES);
+        // The aborted sends did reach the broker.
+        assertThat(outbound("read_uncommitted")).hasSize(TRADES + crashedBatch.get());
+    }
+
+    private List<ConsumerRecord<String, byte[]>> outbound(String isolationLevel) {
+        Map<String, Object> props = KafkaTestUtils.consumerProps("outbound-" + isolationLevel, "false", embeddedKafka);
+        props.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, isolationLevel);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        List<ConsumerRecord<String, byte[]>> records = new ArrayList<>();
+        try (Consumer<String, byte[]> consumer =
+                 new KafkaConsumer<>(props, new StringDeserializer(), new ByteArrayDeserializer())) {
+            embeddedKafka.consumeFromAnEmbeddedTopic(consumer, OUTBOUND_TOPIC);
+            long deadline = System.nanoTime() + Duration.ofSeconds(3).toNanos();
+            while (System.nanoTime() < deadline) {
+                consumer.poll(Duration.ofMillis(200)).forEach(records::add);
+            }
+        }
+        return records;
+    }
+}
@@ -0,0 +1,373 @@
+package com.example.instructions;
+
+import com.example.instructions.config.PayloadFormat;
+import com.example.instructions.model.CanonicalTrade;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * End-to-end load run: paced synthetic trades into {@code instructions.inbound} and a concurrent CSV upload through
+ * {@code TradeController}, measured at a consumer of {@code instructions.outbound}. The run writes a JSON report
+ * (throughput and p50/p99/p99.9 latency per source) to {@code load.report}, {@code target/load-report.json} by
+ * default, for comparison across builds.
+ * <p>
+ * End-to-end latency is the time from a trade's {@code timestamp}, set when it is generated, to its arrival at the
+ * outbound consumer; for the upload that includes waiting its turn in the file. The defaults keep the build fast;
+ * scale the run up with system properties, e.g.
+ * {@code mvn test -Dtest=LoadHarnessTests -Dload.rate=20000 -Dload.seconds=60 -Dload.upload-rows=1000000}.
+ */
+@ActiveProfiles("local")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@EmbeddedKafka(
+    partitions = 4,
+    topics = {"instructions.inbound", "instructions.outbound"}
+)
+@TestPropertySource(properties = {
+    "spring.kafka.consumer.bootstrap-servers=${spring.embedded.kafka.brokers}",
+    "spring.kafka.producer.bootstrap-servers=${spring.embedded.kafka.brokers}",
+    "spring.kafka.consumer.group-id=load-test-group-${random.uuid}",
+    "spring.kafka.listener.poll-timeout=100",
+    "spring.kafka.consumer.auto-offset-reset=earliest",
+    "trade.logging.sample-rate=1000"
+})
+class LoadHarnessTests {
+
+    private static final String INBOUND_TOPIC = "instructions.inbound";
+    private static final String OUTBOUND_TOPIC = "instructions.outbound";
+
+    /** Inbound trades per second. */
+    private static final int RATE = Integer.getInteger("load.rate", 500);
+    /** How long trades are sent to the inbound topic. */
+    private static final int SECONDS = Integer.getInteger("load.seconds", 5);
+    /** How long trades are sent, and then drained, before the measured run; they are not reported. */
+    private static final int WARMUP_SECONDS = Integer.getInteger("load.warmup-seconds", 5);
+    /** Distinct security IDs per source. */
+    private static final int SECURITIES = Integer.getInteger("load.securities", 500);
+    /** Share of generated trades with a blank security ID, which the service rejects. */
+    private static final double INVALID_RATIO = Double.parseDouble(System.getProperty("load.invalid-ratio", "0.05"));
+    /** Rows of the CSV uploaded while the inbound trades are sent; 0 for none. */
+    private static final int UPLOAD_ROWS = Integer.getInteger("load.upload-rows", 5_000);
+    private static final Path REPORT = Path.of(System.getProperty("load.report", "target/load-report.json"));
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(Long.getLong("load.drain-seconds", 60));
+
+    private static final long SEED = 20250804L;
+
+    @Autowired
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafka;
+
+    @Autowired
+    private KafkaListenerEndpointRegistry registry;
+
+    @Test
+    void load_deliversEveryValidTradeAndWritesLatencyReport() throws Exception {
+        int inboundCount = RATE * SECONDS;
+        Map<Source, Recorder> recorders = new EnumMap<>(Source.class);
+        recorders.put(Source.KAFKA, new Recorder(inboundCount));
+        recorders.put(Source.UPLOAD, new Recorder(UPLOAD_ROWS));
+
+        AtomicBoolean allSent = new AtomicBoolean();
+        try (KafkaConsumer<String, byte[]> consumer = outboundConsumer();
+             ExecutorService harness = Executors.newFixedThreadPool(2)) {
+            awaitAssignments(consumer);
+            warmUp(consumer);
+            Instant started = Instant.now();
+            CompletableFuture<Void> drain =
+                CompletableFuture.runAsync(() -> drain(consumer, recorders, allSent), harness);
+            CompletableFuture<Integer> upload =
+                CompletableFuture.supplyAsync(() -> upload(recorders.get(Source.UPLOAD)), harness);
+            sendInbound(Source.KAFKA, inboundCount, recorders.get(Source.KAFKA));
+            int uploadStatus = upload.join();
+            allSent.set(true);
+
+            drain.join();
+            Instant finished = Instant.now();
+
+            LoadReport report = new LoadReport(started, Duration.between(started, finished).toMillis(),
+                new LoadReport.Settings(RATE, SECONDS, WARMUP_SECONDS, SECURITIES, INVALID_RATIO, UPLOAD_ROWS),
+                recorders.get(Source.KAFKA).summary(), recorders.get(Source.UPLOAD).summary());
+            Files.createDirectories(REPORT.toAbsolutePath().getParent());
+            objectMapper.writer().with(SerializationFeature.INDENT_OUTPUT).writeValue(REPORT.toFile(), report);
+
+            assertThat(uploadStatus).isEqualTo(HttpStatus.ACCEPTED.value());
+            assertThat(report.kafka().received()).isEqualTo(report.kafka().expected());
+            assertThat(report.upload().received()).isEqualTo(report.upload().expected());
+            assertThat(REPORT).isNotEmptyFile();
+        }
+    }
+
+    /**
+     * Sends {@code load.warmup-seconds} of inbound trades and waits for them, so the measured run starts with the
+     * JIT and the connections warm.
+     */
+    private void warmUp(KafkaConsumer<String, byte[]> consumer) throws IOException {
+        Map<Source, Recorder> warmUp = Map.of(Source.WARMUP, new Recorder(RATE * WARMUP_SECONDS));
+        sendInbound(Source.WARMUP, RATE * WARMUP_SECONDS, warmUp.get(Source.WARMUP));
+        drain(consumer, warmUp, new AtomicBoolean(true));
+    }
+
+    /** Sends {@code count} trades at {@code load.rate} per second, stamping each with its send time. */
+    private void sendInbound(Source source, int count, Recorder recorder) throws IOException {
+        Random random = new Random(SEED + source.ordinal());
+        long start = System.nanoTime();
+        long interval = 1_000_000_000L / RATE;
+        recorder.started();
+        for (int i = 0; i < count; i++) {
+            long due = start + i * interval;
+            for (long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime()) {
+                LockSupport.parkNanos(wait);
+            }
+            CanonicalTrade trade = trade(source, i, random);
+            recorder.generated(trade.getSecurityId().isEmpty());
+            kafkaTemplate.send(INBOUND_TOPIC, trade.getSecurityId(), objectMapper.writeValueAsBytes(trade));
+        }
+        kafkaTemplate.flush();
+    }
+
+    /** Posts one CSV of {@code load.upload-rows} rows to the synchronous upload endpoint. */
+    private int upload(Recorder recorder) {
+        if (UPLOAD_ROWS == 0) {
+            return HttpStatus.ACCEPTED.value();
+        }
+        Random random = new Random(SEED + Source.UPLOAD.ordinal());
+        StringBuilder csv = new StringBuilder("account_number,security_id,trade_type,quantity,price,amount,timestamp\n");
+        recorder.started();
+        for (int i = 0; i < UPLOAD_ROWS; i++) {
+            CanonicalTrade trade = trade(Source.UPLOAD, i, random);
+            recorder.generated(trade.getSecurityId().isEmpty());
+            csv.append(trade.getAccountNumber()).append(',').append(trade.getSecurityId()).append(',')
+                .append(trade.getTradeType()).append(',').append(trade.getQuantity()).append(',')
+                .append(trade.getPrice()).append(',').append(trade.getAmount()).append(',')
+                .append(trade.getTimestamp()).append('\n');
+        }
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        body.add("file", new ByteArrayResource(csv.toString().getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public String getFilename() {
+                return "load.csv";
+            }
+        });
+        ResponseEntity<String> response = restTemplate.postForEntity("/instructions/v1/api/upload", body, String.class);
+        return response.getStatusCode().value();
+    }
+
+    private static CanonicalTrade trade(Source source, int sequence, Random random) {
+        String security = random.nextDouble() < INVALID_RATIO
+            ? ""
+            : source.prefix + random.nextInt(SECURITIES);
+        long quantity = 1 + random.nextInt(1_000);
+        BigDecimal price = BigDecimal.valueOf(1 + random.nextInt(50_000), 2);
+        return new CanonicalTrade(String.format("%010d", sequence), security, random.nextBoolean() ? "B" : "S",
+            quantity, price, price.multiply(BigDecimal.valueOf(quantity)), LocalDateTime.now(ZoneOffset.UTC));
+    }
+
+    private KafkaConsumer<String, byte[]> outboundConsumer() {
+        Map<String, Object> props = KafkaTestUtils.consumerProps("load-report-" + SEED, "false", embeddedKafka);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 5_000);
+        KafkaConsumer<String, byte[]> consumer =
+            new KafkaConsumer<>(props, new StringDeserializer(), new ByteArrayDeserializer());
+        consumer.subscribe(List.of(OUTBOUND_TOPIC));
+        return consumer;
+    }
+
+    /** Joins both consumer groups before the clock starts, so the run does not measure a rebalance. */
+    private void awaitAssignments(KafkaConsumer<String, byte[]> consumer) {
+        await().atMost(Duration.ofSeconds(30)).until(() -> {
+            consumer.poll(Duration.ofMillis(100));
+            return !consumer.assignment().isEmpty() && registry.getListenerContainers().stream()
+                .allMatch(container -> !container.getAssignedPartitions().isEmpty());
+        });
+    }
+
+    /**
+     * Reads outbound records while trades are being sent, then until every valid trade of both sources has arrived
+     * or {@code load.drain-seconds} have passed since the last one was sent.
+     */
+    private static void drain(KafkaConsumer<String, byte[]> consumer, Map<Source, Recorder> recorders,
+                              AtomicBoolean allSent) {
+        Map<PayloadFormat, ObjectMapper> mappers = new EnumMap<>(PayloadFormat.class);
+        long deadline = Long.MAX_VALUE;
+        while (System.nanoTime() < deadline) {
+            if (deadline == Long.MAX_VALUE && allSent.get()) {
+                deadline = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+            }
+            if (deadline != Long.MAX_VALUE && recorders.values().stream().allMatch(r -> r.received >= r.expected())) {
+                return;
+            }
+            for (ConsumerRecord<String, byte[]> record : consumer.poll(Duration.ofMillis(100))) {
+                long receivedMicros = epochMicros(Instant.now());
+                Header contentType = record.headers().lastHeader(PayloadFormat.HEADER);
+                PayloadFormat format = PayloadFormat.of(contentType != null ? contentType.value() : null);
+                ObjectMapper mapper = mappers.computeIfAbsent(format, PayloadFormat::newMapper);
+                JsonNode trade = readTree(mapper, record.value());
+                Recorder recorder = recorders.get(Source.of(trade.path("security").asText()));
+                long sentMicros = epochMicros(mapper.convertValue(trade.path("timestamp"), LocalDateTime.class)
+                    .toInstant(ZoneOffset.UTC));
+                recorder.received(receivedMicros - sentMicros, receivedMicros);
+            }
+        }
+    }
+
+    private static JsonNode readTree(ObjectMapper mapper, byte[] payload) {
+        try {
+            return mapper.readTree(payload).path("trade");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long epochMicros(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000L + instant.getNano() / 1_000;
+    }
+
+    private enum Source {
+        KAFKA("K"), UPLOAD("U"), WARMUP("W");
+
+        final String prefix;
+
+        Source(String prefix) {
+            this.prefix = prefix;
+        }
+
+        static Source of(String security) {
+            for (Source source : values()) {
+                if (security.startsWith(source.prefix)) {
+                    return source;
+                }
+            }
+            throw new IllegalArgumentException("Not a generated security: " + security);
+        }
+    }
+
+    /**
+     * Latencies of one source, in arrival order. The sending thread counts generated trades before
+     * {@code allSent} is set; the drain thread records arrivals and reads the counts only after that.
+     */
+    private static final class Recorder {
+
+        private final long[] latencies;
+        private volatile long startedMicros;
+        private int generated;
+        private int invalid;
+        private int received;
+        private long lastReceivedMicros;
+
+        Recorder(int capacity) {
+            this.latencies = new long[capacity];
+        }
+
+        void started() {
+            startedMicros = epochMicros(Instant.now());
+        }
+
+        void generated(boolean rejected) {
+            generated++;
+            if (rejected) {
+                invalid++;
+            }
+        }
+
+        int expected() {
+            return generated - invalid;
+        }
+
+        void received(long latencyMicros, long atMicros) {
+            if (received < latencies.length) {
+                latencies[received] = latencyMicros;
+            }
+            received++;
+            lastReceivedMicros = atMicros;
+        }
+
+        LoadReport.SourceSummary summary() {
+            long[] sorted = Arrays.copyOf(latencies, Math.min(received, latencies.length));
+            Arrays.sort(sorted);
+            long elapsedMicros = Math.max(1, lastReceivedMicros - startedMicros);
+            double throughput = received == 0 ? 0 : received * 1_000_000.0 / elapsedMicros;
+            return new LoadReport.SourceSummary(generated, invalid, expected(), received, throughput,
+                new LoadReport.Latency(millis(sorted, 0.50), millis(sorted, 0.99), millis(sorted, 0.999),
+                    sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1_000.0));
+        }
+
+        /** Nearest-rank percentile. */
+        private static double millis(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(percentile * sorted.length);
+            return sorted[Math.max(0, rank - 1)] / 1_000.0;
+        }
+    }
+
+    /** The machine-readable result of a run; latencies are in milliseconds, throughput in trades per second. */
+    record LoadReport(Instant startedAt, long elapsedMillis, Settings settings, SourceSummary kafka,
+                      SourceSummary upload) {
+
+        record Settings(int rate, int seconds, int warmupSeconds, int securities, double invalidRatio,
+                        int uploadRows) {
+        }
+
+        record SourceSummary(int generated, int invalid, int expected, int received, double throughputPerSecond,
+                             Latency latencyMillis) {
+        }
+
+        record Latency(double p50, double p99, double p999, double max) {
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.instructions;
+
+import com.example.instructions.model.CanonicalTrade;
+import com.example.instructions.service.TradeService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@ActiveProfiles("local")
+@SpringBootTest
+@EmbeddedKafka(
+    partitions = 4,
+    topics = {"instructions.inbound", "instructions.outbound"}
+)
+@TestPropertySource(properties = {
+    "spring.kafka.consumer.bootstrap-servers=${spring.embedded.kafka.brokers}",
+    "spring.kafka.producer.bootstrap-servers=${spring.embedded.kafka.brokers}",
+    "spring.kafka.consumer.group-id=partitioned-test-group-${random.uuid}",
+    "spring.kafka.listener.poll-timeout=100",
+    "spring.kafka.consumer.auto-offset-reset=earliest",
+    "app.kafka.listener.concurrency=2",
+    "trade.dedup.enabled=true",
+    "trade.dedup.capacity=1000",
+    "trade.dedup.partition-capacity=1000"
+})
+class PartitionedListenerTests {
+
+    private static final String INBOUND_TOPIC = "instructions.inbound";
+
+    @Autowired
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private KafkaListenerEndpointRegistry registry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockitoSpyBean
+    private TradeService tradeServiceSpy;
+
+    @Test
+    void listener_processesEachPartitionOnOneThreadWithItsOwnDedupShard() throws Exception {
+        Map<Integer, Set<String>> threadsByPartition = new ConcurrentHashMap<>();
+        doAnswer(invocation -> {
+            ConsumerRecord<?, ?> record = invocation.getArgument(1);
+            threadsByPartition.computeIfAbsent(record.partition(), p -> ConcurrentHashMap.newKeySet())
+                .add(Thread.currentThread().getName());
+            return invocation.callRealMethod();
+        }).when(tradeServiceSpy).processTrade(any(CanonicalTrade.class), any(ConsumerRecord.class));
+
+        // Both consumer threads hold two partitions before anything is sent, so no partition moves mid-test.
+        ConcurrentMessageListenerContainer<?, ?> container =
+            (ConcurrentMessageListenerContainer<?, ?>) registry.getListenerContainers().iterator().next();
+        await().atMost(Duration.ofSeconds(20)).untilAsserted(() ->
+            assertThat(container.getContainers()).allSatisfy(child ->
+                assertThat(child.getAssignedPartitions()).hasSize(2)));
+
+        for (int partition = 0; partition < 4; partition++) {
+            for (int i = 0; i < 2; i++) {
+                send(partition, trade("ACC" + partition + i));
+            }
+        }
+        // A redelivery on the same partition is a duplicate; the same trade on another partition is checked
+        // against that partition's shard only.
+        send(0, trade("ACC00"));
+        send(1, trade("ACC00"));
+        kafkaTemplate.flush();
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> {
+            assertThat(threadsByPartition).hasSize(4);
+            assertThat(threadsByPartition.values().stream().mapToInt(Set::size).sum()).isEqualTo(4);
+            assertThat(threadsByPartition.values().stream().flatMap(Set::stream).distinct()).hasSize(2);
+            assertThat(meterRegistry.get("trade.rejections").tag("reason", "duplicate").counter().count())
+                .isEqualTo(1);
+        });
+    }
+
+    private void send(int partition, CanonicalTrade trade) throws Exception {
+        kafkaTemplate.send(INBOUND_TOPIC, partition, trade.getSecurityId(), objectMapper.writeValueAsBytes(trade));
+    }
+
+    private static CanonicalTrade trade(String accountNumber) {
+        return new CanonicalTrade(accountNumber, "SEC1", "B", 100L, new BigDecimal("100.00"),
+            new BigDecimal("10000.00"), LocalDateTime.of(2025, 8, 4, 9, 0));
+    }
+}
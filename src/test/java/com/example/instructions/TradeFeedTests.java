@@ -0,0 +1,166 @@
+package com.example.instructions;
+
+import com.example.instructions.model.CanonicalTrade;
+import com.example.instructions.model.FeedAck;
+import com.example.instructions.service.IngestionProgress;
+import com.example.instructions.service.TradeService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ActiveProfiles("local")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@EmbeddedKafka(
+    partitions = 1,
+    topics = {"instructions.inbound", "instructions.outbound"}
+)
+@TestPropertySource(properties = {
+    "spring.kafka.consumer.bootstrap-servers=${spring.embedded.kafka.brokers}",
+    "spring.kafka.producer.bootstrap-servers=${spring.embedded.kafka.brokers}",
+    "spring.kafka.consumer.group-id=feed-test-group-${random.uuid}"
+})
+class TradeFeedTests {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TradeService tradeService;
+
+    @Test
+    void stream_acknowledgesEachBatchWhileTheRequestIsStillOpen() throws Exception {
+        try (Socket socket = new Socket("localhost", port)) {
+            socket.setSoTimeout(15_000);
+            OutputStream out = socket.getOutputStream();
+            ChunkedReader in = new ChunkedReader(
+                new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.ISO_8859_1)));
+
+            out.write(("POST /instructions/v1/api/stream?batchSize=2 HTTP/1.1\r\nHost: localhost\r\n"
+                + "Content-Type: application/x-ndjson\r\nTransfer-Encoding: chunked\r\n\r\n")
+                .getBytes(StandardCharsets.US_ASCII));
+            writeChunk(out, trade("1000000001") + trade("1000000002"));
+
+            assertThat(in.statusLine()).startsWith("HTTP/1.1 200");
+            FeedAck first = objectMapper.readValue(in.nextLine(), FeedAck.class);
+            assertThat(first.batch()).isEqualTo(1);
+            assertThat(first.recordsRead()).isEqualTo(2);
+            assertThat(first.published()).isEqualTo(2);
+            assertThat(first.complete()).isFalse();
+
+            // The feed is still open: the next trades go over the same request.
+            writeChunk(out, trade("1000000003") + "{\"account_number\":\"1000000004\",\"security_id\":\"\"}\n");
+            writeChunk(out, "");
+
+            FeedAck second = objectMapper.readValue(in.nextLine(), FeedAck.class);
+            assertThat(second.batch()).isEqualTo(2);
+            assertThat(second.complete()).isFalse();
+            FeedAck last = objectMapper.readValue(in.nextLine(), FeedAck.class);
+            assertThat(last.batch()).isEqualTo(2);
+            assertThat(last.recordsRead()).isEqualTo(4);
+            assertThat(last.published()).isEqualTo(3);
+            assertThat(last.rejected()).isEqualTo(1);
+            assertThat(last.complete()).isTrue();
+            assertThat(last.rejectsReport()).isEqualTo(last.feedId());
+        }
+    }
+
+    @Test
+    void rejectsReport_isDownloadedByIdOnly() throws Exception {
+        String id = UUID.randomUUID().toString();
+        IngestionProgress progress = tradeService.newProgress(id);
+        assertThat(get("/instructions/v1/api/rejects/" + id).statusCode()).isEqualTo(409);
+        tradeService.processStream("trades.ndjson", new ByteArrayInputStream(
+            (trade("1000000001") + "{\"account_number\":\"1000000002\",\"security_id\":\"\"}\n")
+                .getBytes(StandardCharsets.UTF_8)), progress);
+        assertThat(progress.rejectsReportId()).isEqualTo(id);
+
+        HttpResponse<String> report = get("/instructions/v1/api/rejects/" + id);
+        assertThat(report.statusCode()).isEqualTo(200);
+        assertThat(report.headers().firstValue("Content-Type")).get().asString().startsWith("text/csv");
+        assertThat(report.body()).isEqualTo("line,reason\n2,MISSING_SECURITY_ID\n");
+
+        assertThat(get("/instructions/v1/api/rejects/" + UUID.randomUUID()).statusCode()).isEqualTo(404);
+        assertThat(get("/instructions/v1/api/rejects/x" + id).statusCode()).isEqualTo(404);
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        }
+    }
+
+    private String trade(String accountNumber) throws IOException {
+        CanonicalTrade trade = new CanonicalTrade(accountNumber, "SEC1", "B", 100L, new BigDecimal("100.00"),
+            new BigDecimal("10000.00"), LocalDateTime.of(2025, 8, 4, 9, 0));
+        return objectMapper.writeValueAsString(trade) + "\n";
+    }
+
+    private static void writeChunk(OutputStream out, String data) throws IOException {
+        byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+        out.write((Integer.toHexString(bytes.length) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.write(bytes);
+        out.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    /** Just enough of HTTP/1.1 to read a chunked response line by line as it arrives. */
+    private static final class ChunkedReader {
+
+        private final BufferedReader in;
+        private final StringBuilder pending = new StringBuilder();
+
+        ChunkedReader(BufferedReader in) {
+            this.in = in;
+        }
+
+        String statusLine() throws IOException {
+            String status = in.readLine();
+            while (!in.readLine().isEmpty()) {
+                // skip headers
+            }
+            return status;
+        }
+
+        String nextLine() throws IOException {
+            int newline;
+            while ((newline = pending.indexOf("\n")) < 0) {
+                int size = Integer.parseInt(in.readLine().trim(), 16);
+                char[] chunk = new char[size];
+                for (int read = 0; read < size; ) {
+                    read += in.read(chunk, read, size - read);
+                }
+                in.readLine();
+                pending.append(chunk);
+            }
+            String line = pending.substring(0, newline);
+            pending.delete(0, newline + 1);
+            return line;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.instructions.config;
+
+import com.example.instructions.util.PlatformRoutes;
+import com.example.instructions.util.PlatformRules;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class FanOutConfigTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+        .withUserConfiguration(FanOutConfig.class)
+        .withPropertyValues("trade.platform.id=ACCT123", "app.kafka.topic.outbound=instructions.outbound");
+
+    @Test
+    void platformRoutes_defaultsToSinglePlatform() {
+        contextRunner.run(context -> {
+            PlatformRoutes routes = context.getBean(PlatformRoutes.class);
+
+            assertThat(routes.platforms()).extracting(PlatformRules::id, PlatformRules::topic)
+                .containsExactly(tuple("ACCT123", "instructions.outbound"));
+        });
+    }
+
+    @Test
+    void platformRoutes_bindsConfiguredPlatformsInOrder() {
+        contextRunner.withPropertyValues(
+                "trade.fan-out.platforms[0].id=ACCT123",
+                "trade.fan-out.platforms[0].topic=instructions.outbound",
+                "trade.fan-out.platforms[1].id=RISK",
+                "trade.fan-out.platforms[1].topic=risk.trades",
+                "trade.fan-out.platforms[1].account-mask=full",
+                "trade.fan-out.platforms[1].trade-types.B=BUY")
+            .run(context -> assertThat(context.getBean(PlatformRoutes.class).platforms())
+                .extracting(PlatformRules::id).containsExactly("ACCT123", "RISK"));
+    }
+
+    @Test
+    void platformRoutes_failsStartupForUnknownTypeCode() {
+        contextRunner.withPropertyValues(
+                "trade.fan-out.platforms[0].id=RISK",
+                "trade.fan-out.platforms[0].topic=risk.trades",
+                "trade.fan-out.platforms[0].trade-types.HOLD=H")
+            .run(context -> assertThat(context).hasFailed());
+    }
+}
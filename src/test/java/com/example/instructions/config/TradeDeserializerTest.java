@@ -0,0 +1,100 @@
+package com.example.instructions.config;
+
+import com.example.instructions.model.CanonicalTrade;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TradeDeserializerTest {
+
+    private static final String TOPIC = "instructions.inbound";
+
+    private final TradeDeserializer deserializer = new TradeDeserializer();
+    private final CanonicalTrade trade = new CanonicalTrade("1000000001", "SEC1", "B", 100L,
+            new BigDecimal("100.25"), new BigDecimal("10025.00"), LocalDateTime.of(2025, 8, 4, 9, 0));
+
+    @Test
+    void deserialize_readsEachFormatNamedInHeader() throws Exception {
+        for (PayloadFormat format : PayloadFormat.values()) {
+            byte[] payload = format.newMapper().writeValueAsBytes(trade);
+            RecordHeaders headers = new RecordHeaders();
+            headers.add(PayloadFormat.HEADER, format.headerValue());
+
+            assertThat(deserializer.deserialize(TOPIC, headers, payload)).usingRecursiveComparison().isEqualTo(trade);
+        }
+    }
+
+    @Test
+    void deserialize_readsJsonWithoutHeader() throws Exception {
+        byte[] payload = new JacksonConfig().objectMapper().writeValueAsBytes(trade);
+
+        assertThat(deserializer.deserialize(TOPIC, new RecordHeaders(), payload))
+                .usingRecursiveComparison().isEqualTo(trade);
+    }
+
+    @Test
+    void deserialize_readsJsonWhenContentTypeIsUnknown() throws Exception {
+        byte[] payload = PayloadFormat.JSON.newMapper().writeValueAsBytes(trade);
+        RecordHeaders headers = new RecordHeaders();
+        headers.add(PayloadFormat.HEADER, "text/plain".getBytes(StandardCharsets.US_ASCII));
+
+        assertThat(deserializer.deserialize(TOPIC, headers, payload)).usingRecursiveComparison().isEqualTo(trade);
+    }
+
+    @Test
+    void deserialize_failsOnPayloadThatIsNotInTheFallbackFormat() {
+        RecordHeaders headers = new RecordHeaders();
+        headers.add(PayloadFormat.HEADER, "application/avro".getBytes(StandardCharsets.US_ASCII));
+
+        assertThatThrownBy(() -> deserializer.deserialize(TOPIC, headers, new byte[] {1}))
+                .isInstanceOf(SerializationException.class)
+                .hasMessageContaining("JSON");
+    }
+
+    @Test
+    void deserialize_ignoresPropertiesTheTradeDoesNotHave() throws Exception {
+        String json = """
+                {"account_number":"1000000001","security_id":"SEC1","trade_type":"B","settlement_date":"2025-08-06"}
+                """;
+        for (PayloadFormat format : PayloadFormat.values()) {
+            byte[] payload = format.newMapper().writeValueAsBytes(PayloadFormat.JSON.newMapper().readTree(json));
+            RecordHeaders headers = new RecordHeaders();
+            headers.add(PayloadFormat.HEADER, format.headerValue());
+
+            assertThat(deserializer.deserialize(TOPIC, headers, payload).getSecurityId()).isEqualTo("SEC1");
+        }
+    }
+
+    @Test
+    void of_ignoresCaseAndParametersOfContentType() {
+        assertThat(PayloadFormat.of(bytes("application/json; charset=UTF-8"))).isEqualTo(PayloadFormat.JSON);
+        assertThat(PayloadFormat.of(bytes("Application/X-Jackson-Smile"))).isEqualTo(PayloadFormat.SMILE);
+        assertThat(PayloadFormat.of(bytes(" application/CBOR ;v=1"))).isEqualTo(PayloadFormat.CBOR);
+    }
+
+    @Test
+    void of_fallsBackToJsonForMissingOrUnknownContentType() {
+        assertThat(PayloadFormat.of(null)).isEqualTo(PayloadFormat.JSON);
+        assertThat(PayloadFormat.of(bytes(""))).isEqualTo(PayloadFormat.JSON);
+        assertThat(PayloadFormat.of(bytes("application/avro"))).isEqualTo(PayloadFormat.JSON);
+    }
+
+    private static byte[] bytes(String headerValue) {
+        return headerValue.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    void binaryFormats_encodeTradeInFewerBytesThanJson() throws Exception {
+        int json = PayloadFormat.JSON.newMapper().writeValueAsBytes(trade).length;
+
+        assertThat(PayloadFormat.SMILE.newMapper().writeValueAsBytes(trade)).hasSizeLessThan(json);
+        assertThat(PayloadFormat.CBOR.newMapper().writeValueAsBytes(trade)).hasSizeLessThan(json);
+    }
+}
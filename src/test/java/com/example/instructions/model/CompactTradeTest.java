@@ -0,0 +1,53 @@
+package com.example.instructions.model;
+
+import com.example.instructions.util.SecurityDictionary;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompactTradeTest {
+
+    private final SecurityDictionary dictionary = new SecurityDictionary();
+
+    @Test
+    void toCanonicalTrade_isLosslessForCompactAndOverflowValues() {
+        List<CanonicalTrade> trades = List.of(
+            new CanonicalTrade("1234567890", "msft", "B", 100L, new BigDecimal("123.4500"),
+                new BigDecimal("12345.00"), LocalDateTime.of(2025, 8, 4, 21, 15, 40, 123_456_789)),
+            new CanonicalTrade("ACC", "GOOG", "Sell", -5L, new BigDecimal("1E+3"), BigDecimal.ZERO,
+                LocalDateTime.of(1969, 12, 31, 23, 59, 59, 1)),
+            new CanonicalTrade("ACC", "GOOG", "short", Long.MAX_VALUE,
+                new BigDecimal("123456789012345678901234567890.123"), new BigDecimal("1E-200"),
+                LocalDateTime.of(2500, 1, 1, 0, 0)),
+            new CanonicalTrade(null, null, null, null, null, null, null));
+
+        for (CanonicalTrade trade : trades) {
+            CanonicalTrade restored = CompactTrade.from(trade, dictionary).toCanonicalTrade(dictionary);
+            assertThat(restored).isEqualTo(trade);
+            if (trade.getPrice() != null) {
+                assertThat(restored.getPrice().scale()).isEqualTo(trade.getPrice().scale());
+            }
+        }
+    }
+
+    @Test
+    void toPlatformTrade_isLossless() {
+        PlatformTrade trade = new PlatformTrade("ACCT123", "AAPL", "S", new BigDecimal("99.99"),
+            LocalDateTime.of(2025, 8, 4, 9, 30));
+
+        assertThat(CompactTrade.from(trade, dictionary).toPlatformTrade(dictionary)).isEqualTo(trade);
+    }
+
+    @Test
+    void from_sharesDictionaryCodePerSecurity() {
+        CompactTrade first = CompactTrade.from(new CanonicalTrade("A", "IBM", "B", 1L, null, null, null), dictionary);
+        CompactTrade second = CompactTrade.from(new CanonicalTrade("B", "IBM", "S", 2L, null, null, null), dictionary);
+
+        assertThat(first.getSecurityCode()).isEqualTo(second.getSecurityCode()).isNotEqualTo(SecurityDictionary.NO_CODE);
+        assertThat(dictionary.size()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.instructions.service;
+
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DedupShardsTest {
+
+    private static final String TOPIC = "instructions.inbound";
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2025-08-04T09:00:00Z"));
+    private final DedupShards shards = new DedupShards(true, Duration.ofMinutes(10), 1_000, clock);
+
+    @Test
+    void forPartition_keepsStatePerPartition() {
+        shards.onPartitionsAssigned(null, List.of(new TopicPartition(TOPIC, 0), new TopicPartition(TOPIC, 1)));
+
+        assertThat(shards.forPartition(TOPIC, 0).firstSeen(42)).isTrue();
+        assertThat(shards.forPartition(TOPIC, 0).firstSeen(42)).isFalse();
+        assertThat(shards.forPartition(TOPIC, 1).firstSeen(42)).isTrue();
+        assertThat(shards.assignedCount()).isEqualTo(2);
+    }
+
+    @Test
+    void onPartitionsAssigned_handsBackRevokedShardWithinWindow() {
+        TopicPartition partition = new TopicPartition(TOPIC, 0);
+        shards.onPartitionsAssigned(null, List.of(partition));
+        shards.forPartition(TOPIC, 0).firstSeen(42);
+
+        shards.onPartitionsRevokedAfterCommit(null, List.of(partition));
+        assertThat(shards.assignedCount()).isZero();
+        clock.advance(Duration.ofMinutes(5));
+        shards.onPartitionsAssigned(null, List.of(partition));
+
+        assertThat(shards.forPartition(TOPIC, 0).firstSeen(42)).isFalse();
+    }
+
+    @Test
+    void onPartitionsAssigned_startsEmptyAfterWindowOrLoss() {
+        TopicPartition first = new TopicPartition(TOPIC, 0);
+        TopicPartition second = new TopicPartition(TOPIC, 1);
+        shards.onPartitionsAssigned(null, List.of(first, second));
+        shards.forPartition(TOPIC, 0).firstSeen(42);
+        shards.forPartition(TOPIC, 1).firstSeen(42);
+
+        shards.onPartitionsRevokedAfterCommit(null, List.of(first));
+        shards.onPartitionsLost(null, List.of(second));
+        clock.advance(Duration.ofMinutes(11));
+        shards.onPartitionsAssigned(null, List.of(first, second));
+
+        assertThat(shards.forPartition(TOPIC, 0).firstSeen(42)).isTrue();
+        assertThat(shards.forPartition(TOPIC, 1).firstSeen(42)).isTrue();
+    }
+
+    @Test
+    void forPartition_looksUpShardAgainAfterRebalance() {
+        TopicPartition partition = new TopicPartition(TOPIC, 12);
+        shards.onPartitionsAssigned(null, List.of(partition, new TopicPartition("other.topic", 12)));
+        TradeDeduplicator before = shards.forPartition(TOPIC, 12);
+        assertThat(shards.forPartition(TOPIC, 12)).isSameAs(before);
+        assertThat(shards.forPartition("other.topic", 12)).isNotSameAs(before);
+
+        shards.onPartitionsLost(null, List.of(partition));
+
+        assertThat(shards.forPartition(TOPIC, 12)).isNotSameAs(before);
+    }
+
+    @Test
+    void forPartition_sharesDisabledInstanceWhenOff() {
+        DedupShards off = new DedupShards(false, Duration.ofMinutes(10), 1_000, clock);
+
+        assertThat(off.forPartition(TOPIC, 0)).isSameAs(off.forPartition(TOPIC, 1));
+        assertThat(off.forPartition(TOPIC, 0).isEnabled()).isFalse();
+        assertThat(off.assignedCount()).isZero();
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant start) {
+            this.now = start;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
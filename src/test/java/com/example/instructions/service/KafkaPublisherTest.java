@@ -0,0 +1,64 @@
+package com.example.instructions.service;
+
+import com.example.instructions.config.PayloadFormat;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KafkaPublisherTest {
+
+    private final List<CompletableFuture<SendResult<String, byte[]>>> sends = new CopyOnWriteArrayList<>();
+    private final List<ProducerRecord<String, byte[]>> records = new CopyOnWriteArrayList<>();
+
+    private final KafkaTemplate<String, byte[]> pendingTemplate =
+            new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(Map.of())) {
+                @Override
+                public CompletableFuture<SendResult<String, byte[]>> send(ProducerRecord<String, byte[]> record) {
+                    records.add(record);
+                    CompletableFuture<SendResult<String, byte[]>> send = new CompletableFuture<>();
+                    sends.add(send);
+                    return send;
+                }
+            };
+
+    @Test
+    void publish_blocksOnceInFlightWindowIsFull() throws Exception {
+        KafkaPublisher publisher = new KafkaPublisher(pendingTemplate, new TradeMetrics(new SimpleMeterRegistry()),
+                new TradeLogSampler(1, Duration.ofMinutes(1)), 2);
+        publisher.publish("A", new byte[0], -1);
+        publisher.publish("B", new byte[0], -1);
+
+        CompletableFuture<Void> third = CompletableFuture.runAsync(() -> publisher.publish("C", new byte[0], -1));
+        Thread.sleep(100);
+        assertThat(third).isNotDone();
+        assertThat(sends).hasSize(2);
+
+        sends.get(0).completeExceptionally(new IllegalStateException("broker unavailable"));
+        third.get(5, TimeUnit.SECONDS);
+        assertThat(sends).hasSize(3);
+    }
+
+    @Test
+    void publish_namesPayloadFormatInRecordHeader() {
+        KafkaPublisher publisher = new KafkaPublisher(pendingTemplate, new TradeMetrics(new SimpleMeterRegistry()),
+                new TradeLogSampler(1, Duration.ofMinutes(1)), 2);
+
+        publisher.publish("A", new byte[0], -1);
+
+        Header contentType = records.get(0).headers().lastHeader(PayloadFormat.HEADER);
+        assertThat(PayloadFormat.of(contentType.value())).isEqualTo(publisher.encoding()).isEqualTo(PayloadFormat.JSON);
+    }
+}
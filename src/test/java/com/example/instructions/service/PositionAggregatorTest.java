@@ -0,0 +1,116 @@
+package com.example.instructions.service;
+
+import com.example.instructions.model.Position;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PositionAggregatorTest {
+
+    private final PositionAggregator positions =
+        new PositionAggregator(Clock.fixed(Instant.parse("2025-08-04T09:00:00Z"), ZoneOffset.UTC));
+
+    @Test
+    void record_netsBuysAgainstSells() {
+        positions.record("AAPL", "1000000001", "B", 10L, new BigDecimal("1002.50"));
+        positions.record("AAPL", "1000000002", "S", 4L, new BigDecimal("401.0001"));
+        positions.record("AAPL", "1000000001", "U", 99L, new BigDecimal("99"));
+
+        assertThat(positions.security("aapl"))
+            .isEqualTo(new Position("AAPL", 3, BigInteger.valueOf(6), new BigDecimal("601.4999")));
+        assertThat(positions.account("1000000001"))
+            .isEqualTo(new Position("1000000001", 2, BigInteger.TEN, new BigDecimal("1002.5000")));
+        assertThat(positions.account("1000000003")).isNull();
+    }
+
+    @Test
+    void record_toleratesMissingQuantityAndAmount() {
+        positions.record("MSFT", null, "B", null, null);
+
+        assertThat(positions.security("MSFT")).isEqualTo(new Position("MSFT", 1, BigInteger.ZERO, new BigDecimal("0.0000")));
+    }
+
+    @Test
+    void record_fromManyThreadsLosesNothing() throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            String type = t % 2 == 0 ? "B" : "S";
+            long quantity = t % 2 == 0 ? 3 : 1;
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    positions.record("SEC" + (i % 8), "ACC", type, quantity, BigDecimal.ONE);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(positions.account("ACC")).isEqualTo(new Position("ACC", 40_000, BigInteger.valueOf(40_000),
+            new BigDecimal("0.0000")));
+    }
+
+    @Test
+    void record_keepsTotalsExactPastTheRangeOfLong() {
+        BigDecimal maxNotional = BigDecimal.valueOf(Long.MAX_VALUE, PositionAggregator.NOTIONAL_SCALE);
+        positions.record("BIG", "1000000001", "B", Long.MAX_VALUE, maxNotional);
+        positions.record("BIG", "1000000001", "B", Long.MAX_VALUE, maxNotional);
+        positions.record("BIG", "1000000001", "B", 2L, new BigDecimal("0.0002"));
+
+        BigInteger twiceMax = BigInteger.valueOf(Long.MAX_VALUE).shiftLeft(1);
+        assertThat(positions.security("BIG")).isEqualTo(new Position("BIG", 3, twiceMax.add(BigInteger.TWO),
+            new BigDecimal(twiceMax.add(BigInteger.TWO), PositionAggregator.NOTIONAL_SCALE)));
+
+        // Back into the range of a long, and an amount that never fitted one.
+        positions.record("BIG", "1000000001", "S", Long.MAX_VALUE, maxNotional);
+        positions.record("BIG", "1000000001", "S", Long.MAX_VALUE, maxNotional);
+        positions.record("BIG", "1000000001", "S", Long.MIN_VALUE, new BigDecimal("1E+30"));
+
+        assertThat(positions.security("BIG")).isEqualTo(new Position("BIG", 6,
+            BigInteger.TWO.subtract(BigInteger.valueOf(Long.MIN_VALUE)),
+            new BigDecimal("-999999999999999999999999999999.9998")));
+    }
+
+    @Test
+    void record_fromManyThreadsSpillsPastTheRangeOfLongExactly() throws InterruptedException {
+        BigDecimal amount = BigDecimal.valueOf(Long.MAX_VALUE / 1_000, PositionAggregator.NOTIONAL_SCALE);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    positions.record("BIG", "ACC", "B", Long.MAX_VALUE / 1_000, amount);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        BigInteger expected = BigInteger.valueOf(Long.MAX_VALUE / 1_000).multiply(BigInteger.valueOf(40_000));
+        assertThat(positions.account("ACC"))
+            .isEqualTo(new Position("ACC", 40_000, expected, new BigDecimal(expected, PositionAggregator.NOTIONAL_SCALE)));
+    }
+
+    @Test
+    void snapshot_showsStateAsOfLastRefresh() {
+        positions.record("AAPL", "1000000001", "B", 10L, BigDecimal.TEN);
+        assertThat(positions.snapshot().securities()).isEmpty();
+
+        positions.refreshSnapshot();
+        positions.record("AAPL", "1000000001", "B", 10L, BigDecimal.TEN);
+
+        PositionAggregator.Snapshot snapshot = positions.snapshot();
+        assertThat(snapshot.takenAt()).isEqualTo(Instant.parse("2025-08-04T09:00:00Z"));
+        assertThat(snapshot.securities()).containsOnlyKeys("AAPL");
+        assertThat(snapshot.securities().get("AAPL").netQuantity()).isEqualTo(BigInteger.TEN);
+        assertThat(snapshot.accounts().get("1000000001").trades()).isEqualTo(1);
+    }
+}
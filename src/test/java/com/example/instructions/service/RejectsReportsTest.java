@@ -0,0 +1,107 @@
+package com.example.instructions.service;
+
+import com.example.instructions.model.RejectionReason;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RejectsReportsTest {
+
+    private static final Instant NOW = Instant.parse("2025-08-04T09:00:00Z");
+
+    @TempDir
+    Path directory;
+
+    private final Clock clock = Clock.fixed(NOW, ZoneOffset.UTC);
+
+    @Test
+    void find_returnsReportOfUploadWithRejects() {
+        RejectsReports reports = new RejectsReports(directory.resolve("rejects"), Duration.ofHours(24), clock);
+        String clean = UUID.randomUUID().toString();
+        String rejected = UUID.randomUUID().toString();
+        reports.newReport(clean).close();
+        RejectsReport report = reports.newReport(rejected);
+        report.write(null, 3, RejectionReason.MISSING_ACCOUNT);
+        report.close();
+
+        assertThat(report.uploadId()).isEqualTo(rejected);
+        assertThat(reports.find(rejected)).isEqualTo(report.path());
+        assertThat(reports.find(clean)).isNull();
+        assertThat(reports.find(UUID.randomUUID().toString())).isNull();
+    }
+
+    @Test
+    void isWriting_untilReportIsClosed() {
+        RejectsReports reports = new RejectsReports(directory, Duration.ofHours(24), clock);
+        String uploadId = UUID.randomUUID().toString();
+        RejectsReport report = reports.newReport(uploadId);
+        report.write(null, 3, RejectionReason.MISSING_ACCOUNT);
+
+        assertThat(reports.isWriting(uploadId)).isTrue();
+        report.close();
+        assertThat(reports.isWriting(uploadId)).isFalse();
+    }
+
+    @Test
+    void write_countsRejectsAfterCloseWithoutListingThem() throws Exception {
+        RejectsReports reports = new RejectsReports(directory, Duration.ofHours(24), clock);
+        RejectsReport report = reports.newReport(UUID.randomUUID().toString());
+        report.write(null, 3, RejectionReason.MISSING_ACCOUNT);
+        report.close();
+
+        report.write(null, 7, RejectionReason.MISSING_SECURITY_ID);
+
+        assertThat(report.lateRejects()).isEqualTo(1);
+        assertThat(Files.readString(report.path())).isEqualTo("line,reason\n3,MISSING_ACCOUNT\n");
+    }
+
+    @Test
+    void find_ignoresIdsThatAreNotUploadIds() throws Exception {
+        Files.writeString(directory.resolve("secret.rejects.csv"), "line,reason\n");
+        RejectsReports reports = new RejectsReports(directory.resolve("rejects"), Duration.ofHours(24), clock);
+
+        assertThat(reports.find("../secret")).isNull();
+        assertThat(reports.find(UUID.randomUUID().toString().toUpperCase())).isNull();
+        assertThat(reports.find("")).isNull();
+    }
+
+    @Test
+    void deleteExpired_deletesOnlyReportsPastRetention() throws Exception {
+        RejectsReports reports = new RejectsReports(directory, Duration.ofHours(24), clock);
+        Path expired = report(reports, NOW.minus(Duration.ofHours(25)));
+        Path recent = report(reports, NOW.minus(Duration.ofHours(23)));
+        Path other = Files.writeString(directory.resolve("notes.csv"), "kept");
+        Files.setLastModifiedTime(other, FileTime.from(NOW.minus(Duration.ofDays(7))));
+
+        assertThat(reports.deleteExpired()).isEqualTo(1);
+
+        assertThat(expired).doesNotExist();
+        assertThat(recent).exists();
+        assertThat(other).exists();
+    }
+
+    @Test
+    void deleteExpired_toleratesMissingDirectory() {
+        RejectsReports reports = new RejectsReports(directory.resolve("rejects"), Duration.ofHours(24), clock);
+
+        assertThat(reports.deleteExpired()).isZero();
+    }
+
+    private static Path report(RejectsReports reports, Instant lastWritten) throws Exception {
+        RejectsReport report = reports.newReport(UUID.randomUUID().toString());
+        report.write(null, 2, RejectionReason.MISSING_SECURITY_ID);
+        report.close();
+        Files.setLastModifiedTime(report.path(), FileTime.from(lastWritten));
+        return report.path();
+    }
+}
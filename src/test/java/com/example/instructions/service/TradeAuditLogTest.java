@@ -0,0 +1,173 @@
+package com.example.instructions.service;
+
+import com.example.instructions.model.AuditRecord;
+import com.example.instructions.model.CanonicalTrade;
+import com.example.instructions.util.SecurityDictionary;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TradeAuditLogTest {
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2025-08-04T09:00:00Z"));
+
+    @Test
+    void query_filtersByAccountSecurityAndTimeNewestFirst() {
+        TradeAuditLog auditLog = new TradeAuditLog(Duration.ofHours(1), 1_000, 4, Duration.ofMinutes(5), 1, new SecurityDictionary(), clock);
+        for (int i = 0; i < 10; i++) {
+            auditLog.record(trade("ACC" + (i % 2), i % 3 == 0 ? "msft" : "GOOG"));
+            clock.advance(Duration.ofSeconds(10));
+        }
+
+        List<AuditRecord> byAccount = auditLog.query("ACC1", null, null, null, 100);
+        assertThat(byAccount).hasSize(5).allMatch(r -> r.trade().getAccountNumber().equals("ACC1"));
+        assertThat(byAccount).isSortedAccordingTo((a, b) -> b.recordedAt().compareTo(a.recordedAt()));
+
+        assertThat(auditLog.query(null, "MSFT", null, null, 100)).hasSize(4);
+        assertThat(auditLog.query("ACC0", "msft", null, null, 100)).hasSize(2);
+
+        Instant from = Instant.parse("2025-08-04T09:00:20Z");
+        Instant to = Instant.parse("2025-08-04T09:00:50Z");
+        assertThat(auditLog.query(null, null, from, to, 100)).hasSize(4)
+            .allMatch(r -> !r.recordedAt().isBefore(from) && !r.recordedAt().isAfter(to));
+        assertThat(auditLog.query(null, null, null, null, 3)).hasSize(3);
+    }
+
+    @Test
+    void record_evictsWholeSegmentsBeyondSizeCap() {
+        TradeAuditLog auditLog = new TradeAuditLog(Duration.ofHours(1), 10, 4, Duration.ofHours(1), 1, new SecurityDictionary(), clock);
+        for (int i = 0; i < 25; i++) {
+            auditLog.record(trade("ACC" + i, "SEC"));
+        }
+
+        TradeAuditLog.Stats stats = auditLog.stats();
+        assertThat(stats.retainedEntries()).isLessThanOrEqualTo(10);
+        assertThat(stats.evictedEntries() % 4).isZero();
+        assertThat(stats.retainedEntries() + stats.evictedEntries()).isEqualTo(25);
+        assertThat(auditLog.query("ACC0", null, null, null, 10)).isEmpty();
+        assertThat(auditLog.query("ACC24", null, null, null, 10)).hasSize(1);
+    }
+
+    @Test
+    void record_keepsShardedLogWithinSizeCap() throws InterruptedException {
+        TradeAuditLog auditLog = new TradeAuditLog(Duration.ofHours(1), 32, 4, Duration.ofHours(1), 4, new SecurityDictionary(), clock);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            String account = "ACC" + t;
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 50; i++) {
+                    auditLog.record(trade(account, "SEC"));
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        TradeAuditLog.Stats stats = auditLog.stats();
+        assertThat(stats.retainedEntries()).isLessThanOrEqualTo(32);
+        assertThat(stats.retainedEntries() + stats.evictedEntries()).isEqualTo(200);
+        for (int t = 0; t < 4; t++) {
+            // Every shard keeps its newest entries.
+            assertThat(auditLog.query("ACC" + t, null, null, null, 100)).isNotEmpty();
+        }
+    }
+
+    @Test
+    void stats_dropsSegmentsOutsideRetentionWindow() {
+        TradeAuditLog auditLog = new TradeAuditLog(Duration.ofMinutes(30), 1_000, 100, Duration.ofMinutes(5), 1, new SecurityDictionary(), clock);
+        auditLog.record(trade("OLD", "SEC"));
+        clock.advance(Duration.ofMinutes(20));
+        auditLog.record(trade("NEW", "SEC"));
+        clock.advance(Duration.ofMinutes(15));
+
+        assertThat(auditLog.query("OLD", null, null, null, 10)).isEmpty();
+        assertThat(auditLog.stats().retainedEntries()).isEqualTo(1);
+        assertThat(auditLog.query("NEW", null, null, null, 10)).hasSize(1);
+    }
+
+    @Test
+    void evictExpired_dropsSegmentsOfShardsNoLongerRecordedInto() throws InterruptedException {
+        TradeAuditLog auditLog = new TradeAuditLog(Duration.ofMinutes(30), 1_000, 100, Duration.ofMinutes(5), 2, new SecurityDictionary(), clock);
+        Thread.ofPlatform().start(() -> auditLog.record(trade("GONE", "SEC"))).join();
+        auditLog.record(trade("OLD", "SEC"));
+        clock.advance(Duration.ofMinutes(35));
+
+        auditLog.evictExpired();
+
+        TradeAuditLog.Stats stats = auditLog.stats();
+        assertThat(stats.evictedEntries()).isEqualTo(2);
+        assertThat(stats.segments()).isZero();
+    }
+
+    @Test
+    void query_mergesShardsOfRecordingThreadsNewestFirst() throws InterruptedException {
+        TradeAuditLog auditLog = new TradeAuditLog(Duration.ofHours(1), 1_000, 8, Duration.ofMinutes(5), 4, new SecurityDictionary(), clock);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            String account = "ACC" + t;
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 20; i++) {
+                    auditLog.record(trade(account, "SEC" + (i % 2)));
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        clock.advance(Duration.ofSeconds(1));
+        auditLog.record(trade("LATEST", "SEC0"));
+
+        assertThat(auditLog.stats().retainedEntries()).isEqualTo(81);
+        assertThat(auditLog.stats().segments()).isEqualTo(4 * 3);
+        assertThat(auditLog.query(null, "SEC0", null, null, 100)).hasSize(41);
+        assertThat(auditLog.query("ACC2", null, null, null, 100)).hasSize(20);
+        List<AuditRecord> newest = auditLog.query(null, null, null, null, 5);
+        assertThat(newest).hasSize(5);
+        assertThat(newest.get(0).trade().getAccountNumber()).isEqualTo("LATEST");
+        assertThat(newest).isSortedAccordingTo((a, b) -> b.recordedAt().compareTo(a.recordedAt()));
+    }
+
+    private static CanonicalTrade trade(String account, String security) {
+        return new CanonicalTrade(account, security, "B", 1L, BigDecimal.ONE, BigDecimal.ONE,
+            LocalDateTime.of(2025, 8, 4, 9, 0));
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant start) {
+            this.now = start;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
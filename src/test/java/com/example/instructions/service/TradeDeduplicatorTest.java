@@ -0,0 +1,152 @@
+package com.example.instructions.service;
+
+import com.example.instructions.model.CanonicalTrade;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TradeDeduplicatorTest {
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2025-08-04T09:00:00Z"));
+
+    @Test
+    void firstSeen_detectsRepeatsWithinWindowOnly() {
+        TradeDeduplicator deduplicator = new TradeDeduplicator(true, Duration.ofMinutes(10), 1_000, clock);
+        long fingerprint = TradeDeduplicator.fingerprint(trade("ACC1", "100.25"));
+
+        assertThat(deduplicator.firstSeen(fingerprint)).isTrue();
+        clock.advance(Duration.ofMinutes(9));
+        assertThat(deduplicator.firstSeen(fingerprint)).isFalse();
+
+        clock.advance(Duration.ofMinutes(2));
+        assertThat(deduplicator.firstSeen(fingerprint)).isTrue();
+        assertThat(deduplicator.size()).isEqualTo(1);
+    }
+
+    @Test
+    void firstSeen_evictsOldestBeyondCapacity() {
+        TradeDeduplicator deduplicator = new TradeDeduplicator(true, Duration.ofMinutes(10), 4, clock);
+        for (long fingerprint = 1; fingerprint <= 6; fingerprint++) {
+            assertThat(deduplicator.firstSeen(fingerprint)).isTrue();
+        }
+
+        assertThat(deduplicator.size()).isEqualTo(4);
+        assertThat(deduplicator.firstSeen(6)).isFalse();
+        assertThat(deduplicator.firstSeen(3)).isFalse();
+        assertThat(deduplicator.firstSeen(1)).isTrue();
+    }
+
+    @Test
+    void forget_letsTheSameTradeThroughAgain() {
+        TradeDeduplicator deduplicator = new TradeDeduplicator(true, Duration.ofMinutes(10), 100, clock);
+        long fingerprint = TradeDeduplicator.fingerprint(trade("ACC1", "100.25"));
+        deduplicator.firstSeen(fingerprint);
+
+        deduplicator.forget(fingerprint);
+
+        assertThat(deduplicator.firstSeen(fingerprint)).isTrue();
+        assertThat(deduplicator.firstSeen(fingerprint)).isFalse();
+    }
+
+    @Test
+    void firstSeen_matchesExactSetUnderChurn() {
+        int capacity = 512;
+        TradeDeduplicator deduplicator = new TradeDeduplicator(true, Duration.ofHours(1), capacity, clock);
+        // Reference model: the ring in arrival order, where a forgotten entry keeps its place until evicted.
+        ArrayDeque<long[]> ring = new ArrayDeque<>();
+        Map<Long, long[]> live = new HashMap<>();
+        SplittableRandom random = new SplittableRandom(20250804);
+
+        for (int i = 0; i < 50_000; i++) {
+            // A small key space forces collisions in the index and frequent repeats.
+            long fingerprint = random.nextLong(2_000) * 0x9E3779B97F4A7C15L;
+            if (random.nextInt(20) == 0 && live.containsKey(fingerprint)) {
+                deduplicator.forget(fingerprint);
+                live.remove(fingerprint)[1] = 0;
+                continue;
+            }
+            boolean expected = !live.containsKey(fingerprint);
+            assertThat(deduplicator.firstSeen(fingerprint)).as("step %d", i).isEqualTo(expected);
+            if (expected) {
+                if (ring.size() == capacity) {
+                    long[] oldest = ring.removeFirst();
+                    if (oldest[1] == 1) {
+                        live.remove(oldest[0]);
+                    }
+                }
+                long[] entry = {fingerprint, 1};
+                ring.addLast(entry);
+                live.put(fingerprint, entry);
+            }
+        }
+    }
+
+    @Test
+    void fingerprint_coversEveryField() {
+        long base = TradeDeduplicator.fingerprint(trade("ACC1", "100.25"));
+
+        assertThat(TradeDeduplicator.fingerprint(trade("ACC1", "100.25"))).isEqualTo(base);
+        assertThat(TradeDeduplicator.fingerprint(trade("ACC2", "100.25"))).isNotEqualTo(base);
+        assertThat(TradeDeduplicator.fingerprint(trade("ACC1", "100.26"))).isNotEqualTo(base);
+        CanonicalTrade later = trade("ACC1", "100.25");
+        later.setTimestamp(later.getTimestamp().plusNanos(1));
+        assertThat(TradeDeduplicator.fingerprint(later)).isNotEqualTo(base);
+        CanonicalTrade noQuantity = trade("ACC1", "100.25");
+        noQuantity.setQuantity(null);
+        assertThat(TradeDeduplicator.fingerprint(noQuantity)).isNotEqualTo(base);
+    }
+
+    @Test
+    void disabled_letsEverythingThrough() {
+        TradeDeduplicator deduplicator = new TradeDeduplicator(false, Duration.ofMinutes(10), 1_000, clock);
+
+        assertThat(deduplicator.firstSeen(42)).isTrue();
+        assertThat(deduplicator.firstSeen(42)).isTrue();
+        assertThat(deduplicator.size()).isZero();
+    }
+
+    private static CanonicalTrade trade(String account, String price) {
+        return new CanonicalTrade(account, "MSFT", "B", 10L, new BigDecimal(price), new BigDecimal("1002.50"),
+            LocalDateTime.of(2025, 8, 4, 9, 0));
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant start) {
+            this.now = start;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.instructions.service;
+
+import com.example.instructions.model.CanonicalTrade;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TradeJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void append_rollsSegmentsAndSurvivesReopen() throws IOException {
+        List<UUID> ids = new ArrayList<>();
+        try (TradeJournal journal = new TradeJournal(directory, 4 * 1024)) {
+            for (int i = 0; i < 500; i++) {
+                UUID id = UUID.randomUUID();
+                journal.append(id, trade(i));
+                ids.add(id);
+            }
+            assertThat(journal.read(ids.get(42))).isEqualTo(withId(trade(42), ids.get(42)));
+        }
+        try (var files = Files.list(directory)) {
+            assertThat(files.filter(f -> f.getFileName().toString().endsWith(".dat")).count()).isGreaterThan(1);
+        }
+
+        try (TradeJournal reopened = new TradeJournal(directory, 4 * 1024)) {
+            assertThat(reopened.size()).isEqualTo(500);
+            for (int i = 0; i < 500; i += 37) {
+                assertThat(reopened.read(ids.get(i))).isEqualTo(withId(trade(i), ids.get(i)));
+            }
+
+            // Appends after a restart continue behind the last indexed record.
+            UUID next = UUID.randomUUID();
+            reopened.append(next, trade(500));
+            assertThat(reopened.read(next)).isEqualTo(withId(trade(500), next));
+            assertThat(reopened.read(ids.get(499))).isEqualTo(withId(trade(499), ids.get(499)));
+        }
+    }
+
+    @Test
+    void reopen_discardsTruncatedIndexEntry() throws IOException {
+        UUID id = UUID.randomUUID();
+        try (TradeJournal journal = new TradeJournal(directory, 4 * 1024)) {
+            journal.append(id, trade(1));
+            journal.append(UUID.randomUUID(), trade(2));
+        }
+        try (FileChannel index = FileChannel.open(directory.resolve(TradeJournal.INDEX_FILE), StandardOpenOption.WRITE)) {
+            index.truncate(index.size() - 5);
+        }
+
+        try (TradeJournal reopened = new TradeJournal(directory, 4 * 1024)) {
+            assertThat(reopened.size()).isEqualTo(1);
+            assertThat(reopened.read(id)).isEqualTo(withId(trade(1), id));
+        }
+    }
+
+    @Test
+    void encode_preservesNullsAndLargeDecimals() {
+        CanonicalTrade sparse = new CanonicalTrade(null, "SEC", null, null,
+            new BigDecimal("123456789012345678901234567890.000001"), null, null);
+        ByteBuffer buffer = ByteBuffer.allocate(512);
+        TradeJournal.encode(sparse, buffer);
+        buffer.flip();
+        assertThat(TradeJournal.decode(buffer)).isEqualTo(sparse);
+    }
+
+    private static CanonicalTrade trade(int i) {
+        return new CanonicalTrade("ACC" + (1_000_000 + i), "SEC" + (i % 7), i % 2 == 0 ? "BUY" : "sell", (long) i,
+            new BigDecimal("101.25").add(BigDecimal.valueOf(i)), new BigDecimal("-5000.500"),
+            LocalDateTime.of(2025, 8, 4, 21, 15, 40, 123_456_789));
+    }
+
+    private static CanonicalTrade withId(CanonicalTrade trade, UUID id) {
+        trade.setCanonicalId(id.toString());
+        return trade;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.instructions.service;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TradeLogSamplerTest {
+
+    @Test
+    void sample_keepsAboutOneInNAndEveryFailure() {
+        TradeLogSampler sampler = new TradeLogSampler(100, Duration.ofMinutes(1));
+        int kept = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (sampler.sample(TradeLogSampler.Event.PUBLISHED)) {
+                kept++;
+            }
+        }
+        assertThat(kept).isBetween(700, 1_300);
+        for (int i = 0; i < 100; i++) {
+            assertThat(sampler.sample(TradeLogSampler.Event.FAILED)).isTrue();
+        }
+    }
+
+    @Test
+    void logSummary_reportsCountsSinceLastSummary() {
+        Logger logger = (Logger) LoggerFactory.getLogger(TradeLogSampler.class);
+        ListAppender<ILoggingEvent> appender = new ListAppender<>();
+        appender.start();
+        logger.addAppender(appender);
+        try {
+            TradeLogSampler sampler = new TradeLogSampler(1, Duration.ofMinutes(1));
+            sampler.sample(TradeLogSampler.Event.RECEIVED);
+            sampler.sample(TradeLogSampler.Event.PUBLISHED);
+            sampler.sample(TradeLogSampler.Event.PUBLISHED);
+            sampler.sample(TradeLogSampler.Event.FAILED);
+
+            sampler.logSummary();
+            sampler.logSummary();
+
+            assertThat(appender.list).hasSize(1);
+            assertThat(appender.list.get(0).getFormattedMessage())
+                .contains("1 received", "0 processed", "2 published", "1 failed", "0 per-trade lines sampled out");
+        } finally {
+            logger.detachAppender(appender);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.instructions.service;
+
+import com.example.instructions.model.RejectionReason;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TradeMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final TradeMetrics metrics = new TradeMetrics(registry);
+
+    @Test
+    void sendCompleted_recordsPublishAndEndToEndOrCountsFailure() {
+        metrics.sendStarted();
+        metrics.sendStarted();
+        assertThat(registry.get("trade.publish.in_flight").gauge().value()).isEqualTo(2);
+
+        metrics.sendCompleted(System.nanoTime(), System.currentTimeMillis() - 50, true);
+        metrics.sendCompleted(System.nanoTime(), System.currentTimeMillis(), false);
+
+        assertThat(registry.get("trade.publish.in_flight").gauge().value()).isZero();
+        assertThat(registry.get("trade.stage.duration").tag("stage", "publish").timer().count()).isEqualTo(1);
+        assertThat(registry.get("trade.end_to_end.latency").timer().count()).isEqualTo(1);
+        assertThat(registry.get("trade.rejections").tags("outcome", "failed", "reason", "send_failed").counter().count())
+            .isEqualTo(1);
+    }
+
+    @Test
+    void reject_countsByOutcomeAndReason() {
+        metrics.reject(RejectionReason.MISSING_ACCOUNT);
+        metrics.reject(RejectionReason.MISSING_ACCOUNT);
+        metrics.reject(RejectionReason.SERIALIZATION_ERROR);
+
+        assertThat(registry.get("trade.rejections").tags("outcome", "rejected", "reason", "missing_account")
+            .counter().count()).isEqualTo(2);
+        assertThat(registry.get("trade.rejections").tags("outcome", "dropped", "reason", "serialization_error")
+            .counter().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.instructions.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class TradePipelineTest {
+
+    private final TradePipeline pipeline = new TradePipeline(4, 16);
+
+    @AfterEach
+    void tearDown() {
+        pipeline.shutdown();
+    }
+
+    @Test
+    void submit_preservesOrderPerKeyAndCompletesBatch() {
+        Map<String, List<Integer>> seen = new ConcurrentHashMap<>();
+        AtomicInteger executed = new AtomicInteger();
+        TradePipeline.Batch batch = pipeline.newBatch();
+
+        for (int i = 0; i < 10_000; i++) {
+            // Mixed case on purpose: both spellings normalize to the same Kafka key.
+            String key = (i % 2 == 0 ? "sec" : "SEC") + (i % 37);
+            String normalized = key.toUpperCase();
+            int sequence = i;
+            pipeline.submit(batch, key, () -> {
+                seen.computeIfAbsent(normalized, k -> new ArrayList<>()).add(sequence);
+                executed.incrementAndGet();
+            });
+        }
+        batch.await();
+
+        assertThat(executed.get()).isEqualTo(10_000);
+        assertThat(seen).hasSize(37);
+        seen.values().forEach(sequence -> assertThat(sequence).isSorted());
+    }
+
+    @Test
+    void submit_racingShutdownRunsOrRejectsEveryTask() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            TradePipeline racing = new TradePipeline(2, 4);
+            TradePipeline.Batch batch = racing.newBatch();
+            AtomicInteger executed = new AtomicInteger();
+            AtomicInteger rejected = new AtomicInteger();
+            List<Thread> submitters = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                Thread submitter = new Thread(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        try {
+                            racing.submit(batch, "SEC" + i, executed::incrementAndGet);
+                        } catch (IllegalStateException e) {
+                            rejected.incrementAndGet();
+                        }
+                    }
+                });
+                submitter.start();
+                submitters.add(submitter);
+            }
+            racing.shutdown();
+            for (Thread submitter : submitters) {
+                submitter.join();
+            }
+
+            assertTimeoutPreemptively(Duration.ofSeconds(5), batch::await);
+            assertThat(executed.get() + rejected.get()).isEqualTo(2_000);
+        }
+    }
+
+    @Test
+    void laneFor_ignoresCase() {
+        assertThat(TradePipeline.laneFor("msft", 8)).isEqualTo(TradePipeline.laneFor("MSFT", 8));
+        assertThat(TradePipeline.laneFor(null, 8)).isZero();
+    }
+}
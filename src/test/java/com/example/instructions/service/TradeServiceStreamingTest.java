@@ -0,0 +1,381 @@
+package com.example.instructions.service;
+
+import ch.qos.logback.classic.Level;
+import com.example.instructions.config.JacksonConfig;
+import com.example.instructions.model.EntryCounts;
+import com.example.instructions.model.PlatformTrade;
+import com.example.instructions.model.Position;
+import com.example.instructions.model.RejectionReason;
+import com.example.instructions.util.PlatformRoutes;
+import com.example.instructions.util.PlatformRules;
+import com.example.instructions.util.SecurityDictionary;
+import com.example.instructions.util.TradeTransformer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+/**
+ * Streams generated JSON through {@link TradeService} without ever materializing the file.
+ * <p>
+ * The default size keeps the build fast; scale it up to exercise multi-GB inputs under a small heap, e.g.
+ * {@code mvn test -Dtest=TradeServiceStreamingTest -Dtrades.streaming.records=20000000 -DargLine=-Xmx64m}.
+ */
+class TradeServiceStreamingTest {
+
+    private static final long RECORDS = Long.getLong("trades.streaming.records", 200_000L);
+
+    private final AtomicLong published = new AtomicLong();
+    private final TradeMetrics metrics = new TradeMetrics(new SimpleMeterRegistry());
+    private final TradeLogSampler logSampler = new TradeLogSampler(1, Duration.ofMinutes(1));
+    private final PositionAggregator positions = new PositionAggregator();
+    private TradeService tradeService;
+
+    @BeforeEach
+    void setUp() {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(TradeService.class)).setLevel(Level.WARN);
+
+        KafkaPublisher countingPublisher = new KafkaPublisher(null, metrics, logSampler, 1_000) {
+            @Override
+            public CompletableFuture<SendResult<String, byte[]>> publish(String topic, String key, byte[] payload,
+                                                                         long originMillis) {
+                published.incrementAndGet();
+                return CompletableFuture.completedFuture(null);
+            }
+        };
+        tradeService = tradeService(countingPublisher, PlatformRoutes.single("ACCT123", "instructions.outbound"));
+    }
+
+    private TradeService tradeService(KafkaPublisher publisher, PlatformRoutes routes) {
+        JacksonConfig jacksonConfig = new JacksonConfig();
+        return new TradeService(new TradeTransformer(), publisher, jacksonConfig.objectMapper(),
+                jacksonConfig.csvMapper(), new TradePipeline(2, 256),
+                new TradeAuditLog(Duration.ofHours(1), 10_000, 1_024, Duration.ofMinutes(5), 0, new SecurityDictionary()),
+                metrics, new TradeDeduplicator(false, Duration.ofMinutes(10), 1),
+                new DedupShards(false, Duration.ofMinutes(10), 1), positions, logSampler, routes,
+                new RejectsReports(Path.of(System.getProperty("java.io.tmpdir"), "trade-rejects"), Duration.ofHours(1)));
+    }
+
+    @Test
+    void processJson_streamsLargeArrayWithoutBuffering() throws Exception {
+        try (InputStream in = new GeneratedTradeStream(RECORDS, true)) {
+            int count = tradeService.processStream("generated.json", in);
+            assertThat(count).isEqualTo(RECORDS);
+        }
+        assertThat(published.get()).isEqualTo(RECORDS);
+    }
+
+    @Test
+    void processJson_acceptsNewlineDelimitedTrades() throws Exception {
+        try (InputStream in = new GeneratedTradeStream(1_000, false)) {
+            int count = tradeService.processStream("generated.ndjson", in);
+            assertThat(count).isEqualTo(1_000);
+        }
+        assertThat(published.get()).isEqualTo(1_000);
+    }
+
+    @Test
+    void processJson_handlesEmptyArray() throws Exception {
+        InputStream in = new ByteArrayInputStream("[ ]".getBytes(StandardCharsets.UTF_8));
+        assertThat(tradeService.processStream("empty.json", in)).isZero();
+    }
+
+    @Test
+    void processCsv_listsRejectedRowsWithLineAndReason(@TempDir Path tempDir) throws Exception {
+        String csv = """
+            account_number,security_id,trade_type,quantity,price,amount,timestamp
+            1000000001,SEC1,BUY,10,100.25,1002.50,2025-08-04T21:15:40
+            1000000002,,SELL,10,100.25,1002.50,2025-08-04T21:15:40
+            1000000003,SEC3,BUY,10,100.25,1002.50,2025-08-04T21:15:40
+            ,SEC4,BUY,10,100.25,1002.50,2025-08-04T21:15:40
+            1000000005,SEC5,BUY,10,100.25,1002.50,2025-08-04T21:15:40
+            """;
+        IngestionProgress progress = new IngestionProgress(new RejectsReport("upload", tempDir.resolve("upload.rejects.csv")));
+
+        int count = tradeService.processStream("trades.csv",
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), progress);
+
+        assertThat(count).isEqualTo(5);
+        assertThat(progress.published()).isEqualTo(3);
+        assertThat(progress.rejected()).isEqualTo(2);
+        assertThat(progress.rejections()).containsOnly(
+                entry(RejectionReason.MISSING_SECURITY_ID, 1L), entry(RejectionReason.MISSING_ACCOUNT, 1L));
+        assertThat(Files.readAllLines(progress.rejectsFile()))
+                .containsExactlyInAnyOrder("line,reason", "3,MISSING_SECURITY_ID", "5,MISSING_ACCOUNT");
+    }
+
+    @Test
+    void processJson_reportsLineOfEachRejectedTrade(@TempDir Path tempDir) throws Exception {
+        String ndjson = """
+            {"account_number":"1000000001","security_id":"SEC1","trade_type":"BUY"}
+            {"account_number":"1000000002","security_id":" ","trade_type":"BUY"}
+            """;
+        IngestionProgress progress = new IngestionProgress(new RejectsReport("upload", tempDir.resolve("upload.rejects.csv")));
+
+        tradeService.processStream("trades.ndjson", new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)),
+                progress);
+
+        assertThat(Files.readAllLines(progress.rejectsFile())).containsExactly("line,reason", "2,MISSING_SECURITY_ID");
+    }
+
+    @Test
+    void processStream_createsNoRejectsFileForCleanUpload(@TempDir Path tempDir) throws Exception {
+        IngestionProgress progress = new IngestionProgress(new RejectsReport("upload", tempDir.resolve("upload.rejects.csv")));
+
+        tradeService.processStream("generated.ndjson", new GeneratedTradeStream(100, false), progress);
+
+        assertThat(progress.rejectsFile()).isNull();
+        assertThat(tempDir).isEmptyDirectory();
+    }
+
+    @Test
+    void processFeed_reportsTotalsAfterEveryFullBatch() throws Exception {
+        List<String> acks = new ArrayList<>();
+        IngestionProgress progress = new IngestionProgress();
+
+        int count = tradeService.processFeed("feed", new GeneratedTradeStream(2_500, false), progress, 1_000,
+                p -> acks.add(p.read() + "/" + p.published()));
+
+        assertThat(count).isEqualTo(2_500);
+        assertThat(acks).containsExactly("1000/1000", "2000/2000");
+        assertThat(progress.published()).isEqualTo(2_500);
+    }
+
+    @Test
+    void processStream_updatesPositionsOfPublishedTradesOnly() throws Exception {
+        String csv = """
+            account_number,security_id,trade_type,quantity,price,amount,timestamp
+            1000000001,sec1,BUY,10,100.25,1002.50,2025-08-04T21:15:40
+            1000000002,SEC1,S,4,100.00,400.00,2025-08-04T21:15:40
+            ,SEC1,BUY,10,100.25,1002.50,2025-08-04T21:15:40
+            1000000001,SEC2,SELL,1,5.00,5.00,2025-08-04T21:15:40
+            """;
+
+        tradeService.processStream("trades.csv", new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(positions.security("SEC1")).isEqualTo(new Position("SEC1", 2, BigInteger.valueOf(6), new BigDecimal("602.5000")));
+        assertThat(positions.account("1000000001"))
+                .isEqualTo(new Position("1000000001", 2, BigInteger.valueOf(9), new BigDecimal("997.5000")));
+    }
+
+    @Test
+    void processStream_decompressesGzippedFileWhileReading() throws Exception {
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(gzipped)) {
+            new GeneratedTradeStream(5_000, false).transferTo(out);
+        }
+
+        int count = tradeService.processStream("generated.ndjson.gz", new ByteArrayInputStream(gzipped.toByteArray()));
+
+        assertThat(count).isEqualTo(5_000);
+        assertThat(published.get()).isEqualTo(5_000);
+    }
+
+    @Test
+    void processStream_processesEachTradeFileOfZipAndSkipsTheRest(@TempDir Path tempDir) throws Exception {
+        byte[] zip = zip(Map.of("a/", "", "a/first.csv", ZIP_CSV, "second.ndjson", ZIP_NDJSON, "notes.txt", "x"));
+        IngestionProgress progress = new IngestionProgress(new RejectsReport("upload", tempDir.resolve("upload.rejects.csv")));
+
+        int count = tradeService.processStream("trades.zip", new ByteArrayInputStream(zip), progress);
+
+        assertThat(count).isEqualTo(4);
+        assertThat(progress.published()).isEqualTo(3);
+        assertThat(progress.entries()).containsExactlyInAnyOrder(
+                new EntryCounts("a/first.csv", 2, 1, 1, 0), new EntryCounts("second.ndjson", 2, 2, 0, 0));
+    }
+
+    @Test
+    void processFile_processesZipEntriesInParallelAndListsRejectsByEntry(@TempDir Path tempDir) throws Exception {
+        Path file = tempDir.resolve("trades.zip");
+        Files.write(file, zip(Map.of("first.csv", ZIP_CSV, "second.csv", ZIP_CSV, "third.ndjson", ZIP_NDJSON)));
+        IngestionProgress progress = new IngestionProgress(new RejectsReport("upload", tempDir.resolve("upload.rejects.csv")));
+
+        int count = tradeService.processFile("trades.zip", file, progress);
+
+        assertThat(count).isEqualTo(6);
+        assertThat(progress.published()).isEqualTo(4);
+        assertThat(progress.rejected()).isEqualTo(2);
+        assertThat(progress.entries()).hasSize(3);
+        assertThat(Files.readAllLines(progress.rejectsFile())).containsExactlyInAnyOrder("entry,line,reason",
+                "first.csv,3,MISSING_SECURITY_ID", "second.csv,3,MISSING_SECURITY_ID");
+    }
+
+    @Test
+    void processStream_publishesEachTradeToEveryPlatformWithItsRules() throws Exception {
+        List<String> sent = new CopyOnWriteArrayList<>();
+        KafkaPublisher recordingPublisher = new KafkaPublisher(null, metrics, logSampler, 1_000) {
+            @Override
+            public CompletableFuture<SendResult<String, byte[]>> publish(String topic, String key, byte[] payload,
+                                                                         long originMillis) {
+                sent.add(topic + " " + new String(payload, StandardCharsets.UTF_8));
+                return CompletableFuture.completedFuture(null);
+            }
+        };
+        TradeService fanOut = tradeService(recordingPublisher, new PlatformRoutes(List.of(
+                PlatformRules.defaults("ACCT123", "instructions.outbound"),
+                new PlatformRules("RISK", "risk.trades", PlatformRules.AccountMask.FULL,
+                        Map.of("B", "BUY", "S", "SELL")))));
+        String csv = """
+            account_number,security_id,trade_type,quantity,price,amount,timestamp
+            1000000001,sec1,BUY,10,100.25,1002.50,2025-08-04T21:15:40
+            1000000002,,SELL,10,100.25,1002.50,2025-08-04T21:15:40
+            """;
+        IngestionProgress progress = new IngestionProgress();
+
+        fanOut.processStream("trades.csv", new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), progress);
+
+        assertThat(progress.published()).isEqualTo(1);
+        assertThat(progress.rejected()).isEqualTo(1);
+        assertThat(sent).containsExactly(
+                "instructions.outbound {\"platform_id\":\"ACCT123\",\"trade\":{\"account\":\"****0001\","
+                        + "\"security\":\"SEC1\",\"type\":\"B\",\"amount\":1002.50,\"timestamp\":[2025,8,4,21,15,40]}}",
+                "risk.trades {\"platform_id\":\"RISK\",\"trade\":{\"account\":\"****\","
+                        + "\"security\":\"SEC1\",\"type\":\"BUY\",\"amount\":1002.50,\"timestamp\":[2025,8,4,21,15,40]}}");
+        assertThat(positions.security("SEC1").trades()).isEqualTo(1);
+    }
+
+    @Test
+    void processStream_publishesSameBytesAsTheProducersJsonSerializerDid() throws Exception {
+        List<byte[]> sent = new CopyOnWriteArrayList<>();
+        KafkaPublisher recordingPublisher = new KafkaPublisher(null, metrics, logSampler, 1_000) {
+            @Override
+            public CompletableFuture<SendResult<String, byte[]>> publish(String topic, String key, byte[] payload,
+                                                                         long originMillis) {
+                sent.add(payload);
+                return CompletableFuture.completedFuture(null);
+            }
+        };
+        String csv = """
+            account_number,security_id,trade_type,quantity,price,amount,timestamp
+            1000000001,sec1,BUY,10,100.25,1002.50,2025-01-02T03:04:05
+            """;
+
+        tradeService(recordingPublisher, PlatformRoutes.single("ACCT123", "instructions.outbound"))
+                .processStream("trades.csv", new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        PlatformTrade expected = new PlatformTrade("****0001", "SEC1", "B", new BigDecimal("1002.50"),
+                LocalDateTime.of(2025, 1, 2, 3, 4, 5));
+        try (JsonSerializer<PlatformTrade.PlatformTradeWrapper> serializer = new JsonSerializer<>()) {
+            assertThat(sent).singleElement().isEqualTo(serializer.serialize("instructions.outbound",
+                    new PlatformTrade.PlatformTradeWrapper("ACCT123", expected)));
+        }
+        assertThat(new String(sent.get(0), StandardCharsets.UTF_8)).isEqualTo(
+                "{\"platform_id\":\"ACCT123\",\"trade\":{\"account\":\"****0001\",\"security\":\"SEC1\","
+                        + "\"type\":\"B\",\"amount\":1002.50,\"timestamp\":[2025,1,2,3,4,5]}}");
+    }
+
+    private static final String ZIP_CSV = """
+            account_number,security_id,trade_type,quantity,price,amount,timestamp
+            1000000001,SEC1,BUY,10,100.25,1002.50,2025-08-04T21:15:40
+            1000000002,,SELL,10,100.25,1002.50,2025-08-04T21:15:40
+            """;
+
+    private static final String ZIP_NDJSON = """
+            {"account_number":"1000000003","security_id":"SEC3","trade_type":"BUY"}
+            {"account_number":"1000000004","security_id":"SEC4","trade_type":"SELL"}
+            """;
+
+    private static byte[] zip(Map<String, String> files) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (Map.Entry<String, String> file : new TreeMap<>(files).entrySet()) {
+                zip.putNextEntry(new ZipEntry(file.getKey()));
+                zip.write(file.getValue().getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /** Produces trades lazily, either as one JSON array or as NDJSON lines. */
+    static final class GeneratedTradeStream extends InputStream {
+
+        private final long records;
+        private final boolean array;
+        private long next;
+        private byte[] chunk;
+        private int pos;
+        private boolean closed;
+
+        GeneratedTradeStream(long records, boolean array) {
+            this.records = records;
+            this.array = array;
+            this.chunk = (array ? "[" : "").getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public int read() {
+            if (!fill()) {
+                return -1;
+            }
+            return chunk[pos++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!fill()) {
+                return -1;
+            }
+            int n = Math.min(len, chunk.length - pos);
+            System.arraycopy(chunk, pos, b, off, n);
+            pos += n;
+            return n;
+        }
+
+        private boolean fill() {
+            while (pos == chunk.length) {
+                if (next < records) {
+                    chunk = record(next++).getBytes(StandardCharsets.UTF_8);
+                } else if (!closed) {
+                    closed = true;
+                    chunk = (array ? "]" : "").getBytes(StandardCharsets.UTF_8);
+                } else {
+                    return false;
+                }
+                pos = 0;
+            }
+            return true;
+        }
+
+        private String record(long i) {
+            String separator = array ? (i == 0 ? "" : ",") : "";
+            String terminator = array ? "" : "\n";
+            return separator + "{\"account_number\":\"" + (1_000_000_000L + i % 1_000) + "\","
+                    + "\"security_id\":\"SEC" + (i % 500) + "\","
+                    + "\"trade_type\":\"" + (i % 2 == 0 ? "BUY" : "SELL") + "\","
+                    + "\"quantity\":" + (i % 1_000 + 1) + ","
+                    + "\"price\":" + (100 + i % 50) + ".25,"
+                    + "\"amount\":" + (1_000 + i % 50) + ".50,"
+                    + "\"timestamp\":\"2025-08-04T21:15:40\"}" + terminator;
+        }
+    }
+}
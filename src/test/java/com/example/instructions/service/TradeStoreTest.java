@@ -0,0 +1,25 @@
+package com.example.instructions.service;
+
+import com.example.instructions.util.SecurityDictionary;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TradeStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void rejectsJournalSegmentsTooLargeToMap() {
+        assertThatThrownBy(() -> new TradeStore(true, directory, DataSize.ofGigabytes(2), new SecurityDictionary()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("trade.store.journal.segment-size");
+        assertThatThrownBy(() -> new TradeStore(true, directory, DataSize.ofBytes(0), new SecurityDictionary()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
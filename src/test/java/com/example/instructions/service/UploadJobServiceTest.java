@@ -0,0 +1,128 @@
+package com.example.instructions.service;
+
+import ch.qos.logback.classic.Level;
+import com.example.instructions.config.JacksonConfig;
+import com.example.instructions.model.UploadJobStatus;
+import com.example.instructions.util.PlatformRoutes;
+import com.example.instructions.util.SecurityDictionary;
+import com.example.instructions.util.TradeTransformer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UploadJobServiceTest {
+
+    private static final String CSV = """
+        account_number,security_id,trade_type,quantity,price,amount,timestamp
+        2001456789,MSFT,B,500,125.50,62750.00,2025-08-04T21:15:40
+        ,GOOG,S,250,2000.10,500025.00,2025-08-04T21:15:40
+        3009987654,goog,Sell,250,2000.10,500025.00,2025-08-04T21:15:40
+        """;
+
+    @TempDir
+    Path spool;
+
+    @TempDir
+    Path rejects;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final TradeMetrics metrics = new TradeMetrics(new SimpleMeterRegistry());
+    private final TradeLogSampler logSampler = new TradeLogSampler(1, Duration.ofMinutes(1));
+    private UploadJobService jobs;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(TradeService.class)).setLevel(Level.WARN);
+
+        KafkaPublisher gatedPublisher = new KafkaPublisher(null, metrics, logSampler, 1_000) {
+            @Override
+            public CompletableFuture<SendResult<String, byte[]>> publish(String topic, String key, byte[] payload,
+                                                                         long originMillis) {
+                return CompletableFuture.runAsync(() -> awaitQuietly(release)).thenApply(v -> null);
+            }
+        };
+        JacksonConfig jacksonConfig = new JacksonConfig();
+        TradeService tradeService = new TradeService(new TradeTransformer(), gatedPublisher,
+                jacksonConfig.objectMapper(), jacksonConfig.csvMapper(), new TradePipeline(2, 16),
+                new TradeAuditLog(Duration.ofHours(1), 1_000, 64, Duration.ofMinutes(5), 0, new SecurityDictionary()),
+                metrics, new TradeDeduplicator(false, Duration.ofMinutes(10), 1),
+                new DedupShards(false, Duration.ofMinutes(10), 1), new PositionAggregator(), logSampler,
+                PlatformRoutes.single("ACCT123", "instructions.outbound"),
+                new RejectsReports(rejects, Duration.ofHours(1)));
+        jobs = new UploadJobService(tradeService, spool, 1, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        jobs.shutdown();
+    }
+
+    @Test
+    void submit_returnsBeforeProcessingAndCompletesOnceSendsAreAcknowledged() throws Exception {
+        UploadJobStatus submitted = jobs.submit(new MockMultipartFile("file", "trades.csv", "text/csv",
+                CSV.getBytes(StandardCharsets.UTF_8)));
+        assertThat(submitted.state()).isIn(UploadJobStatus.State.QUEUED, UploadJobStatus.State.RUNNING);
+
+        // Parsed and rejected, but the two sends are held back: the job must wait for their acks.
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (jobs.status(submitted.jobId()).rejected() < 1 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(100);
+        UploadJobStatus waiting = jobs.status(submitted.jobId());
+        assertThat(waiting.state()).isEqualTo(UploadJobStatus.State.RUNNING);
+        assertThat(waiting.recordsRead()).isEqualTo(3);
+        assertThat(waiting.published()).isZero();
+
+        release.countDown();
+        UploadJobStatus done = awaitState(submitted.jobId(), UploadJobStatus.State.COMPLETED);
+        assertThat(done.published()).isEqualTo(2);
+        assertThat(done.rejected()).isEqualTo(1);
+        assertThat(done.rejectsReport()).isEqualTo(submitted.jobId());
+        try (var files = Files.list(spool)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void submit_rejectsUnsupportedFileType() {
+        assertThatThrownBy(() -> jobs.submit(new MockMultipartFile("file", "trades.txt", "text/plain", new byte[] {1})))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(jobs.status("unknown")).isNull();
+    }
+
+    private UploadJobStatus awaitState(String jobId, UploadJobStatus.State state) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        UploadJobStatus status = jobs.status(jobId);
+        while (status.state() != state && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            status = jobs.status(jobId);
+        }
+        assertThat(status.state()).isEqualTo(state);
+        return status;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.instructions.util;
+
+import com.example.instructions.config.JacksonConfig;
+import com.example.instructions.model.CanonicalTrade;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CsvTradeReaderTest {
+
+    private static final List<String> FIELDS = List.of(
+        "account_number", "security_id", "trade_type", "quantity", "price", "amount", "timestamp");
+    private static final String[][] VALUES = {
+        {"1000000001", "1234567890", "123", "", " 12 ", "ACC-9", "é12"},
+        {"SEC1", "MSFT", "msft", "", " AAPL", "A\"B", "\"GOOG\"", "ÉTF"},
+        {"B", "S", "BUY", "SELL", "buy", "", " B", "HOLD"},
+        {"10", "-5", "007", "", "+3", " 4", "1e3", "99999999999999999999", "abc", "0"},
+        {"100.25", "-0.00", "1002.50", "", "5.", ".5", "1e2", "123456789012345678901.5", "1.2.3", "-", "42"},
+        {"100.25", "-0.00", "1002.50", "", "5.", ".5", "1e2", "123456789012345678901.5", "1.2.3", "-", "42"},
+        {"2025-08-04T21:15:40", "2025-08-04T21:15:40.5", "2025-08-04T21:15:40.123456789", "", "2025-08-04T21:15",
+            "2025-08-04T21:15:40Z", "2025-02-30T00:00:00", "2025-08-04 21:15:40", "x", "2025-08-04T21:15:40."}
+    };
+
+    private final CsvMapper csvMapper = new JacksonConfig().csvMapper();
+
+    @Test
+    void next_matchesCsvMapperOnRandomFiles() throws IOException {
+        Random random = new Random(20250804);
+        for (int file = 0; file < 2_000; file++) {
+            byte[] csv = randomFile(random);
+            assertThat(read(csv, random.nextBoolean())).as("file %s", new String(csv, StandardCharsets.UTF_8))
+                .isEqualTo(readWithCsvMapper(csv));
+        }
+    }
+
+    @Test
+    void next_handlesCanonicalFileOnFastPath() throws IOException {
+        String csv = """
+            account_number,security_id,trade_type,quantity,price,amount,timestamp
+            1000000001,SEC1,BUY,10,100.25,1002.50,2025-08-04T21:15:40
+            1000000002,SEC2,S,5,-0.5,-2.5,2025-08-04T21:15:40.123
+            """;
+        List<String> trades = read(csv.getBytes(StandardCharsets.UTF_8), false);
+
+        assertThat(trades).containsExactly(
+            "2 CanonicalTrade(accountNumber=1000000001, securityId=SEC1, tradeType=BUY, quantity=10, price=100.25, "
+                + "amount=1002.50, timestamp=2025-08-04T21:15:40, canonicalId=null)",
+            "3 CanonicalTrade(accountNumber=1000000002, securityId=SEC2, tradeType=S, quantity=5, price=-0.5, "
+                + "amount=-2.5, timestamp=2025-08-04T21:15:40.123, canonicalId=null)");
+    }
+
+    @Test
+    void next_readsLinesLongerThanTheBuffer() throws IOException {
+        String account = "9".repeat(200_000);
+        byte[] csv = ("account_number,security_id\n" + account + ",SEC1\n1,SEC2\n").getBytes(StandardCharsets.UTF_8);
+
+        assertThat(read(csv, true)).isEqualTo(readWithCsvMapper(csv)).hasSize(2);
+    }
+
+    private byte[] randomFile(Random random) {
+        List<String> columns = new ArrayList<>(FIELDS);
+        Collections.shuffle(columns, random);
+        columns = columns.subList(0, 1 + random.nextInt(columns.size()));
+        StringBuilder sb = new StringBuilder();
+        int headerKind = random.nextInt(20);
+        if (headerKind == 0) {
+            sb.append('\uFEFF');
+        }
+        List<String> header = new ArrayList<>(columns);
+        if (headerKind == 1) {
+            header.set(0, " " + header.get(0));
+        } else if (headerKind == 2) {
+            header.add("canonicalId");
+        }
+        sb.append(String.join(",", header)).append(random.nextInt(4) == 0 ? "\r\n" : "\n");
+
+        int rows = random.nextInt(20);
+        for (int row = 0; row < rows; row++) {
+            int kind = random.nextInt(40);
+            List<String> fields = new ArrayList<>();
+            for (String column : header) {
+                int field = FIELDS.indexOf(column);
+                String[] values = field >= 0 ? VALUES[field] : new String[] {"id"};
+                // mostly canonical values, so files tend to get past the first row
+                fields.add(values[random.nextInt(4) != 0 ? random.nextInt(Math.min(3, values.length))
+                    : random.nextInt(values.length)]);
+            }
+            if (kind == 0) {
+                fields = fields.subList(0, random.nextInt(fields.size()));
+            } else if (kind == 1) {
+                fields.add("extra");
+            }
+            sb.append(String.join(",", fields));
+            if (row < rows - 1 || random.nextBoolean()) {
+                sb.append(kind == 2 ? "\r\n" : "\n");
+            }
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** @return each trade with its line, ending with the exception type if reading fails */
+    private List<String> read(byte[] csv, boolean trickle) throws IOException {
+        InputStream in = trickle ? new TrickleInputStream(csv) : new ByteArrayInputStream(csv);
+        List<String> trades = new ArrayList<>();
+        try (CsvTradeReader reader = CsvTradeReader.open(in, csvMapper)) {
+            CanonicalTrade trade;
+            while ((trade = reader.next()) != null) {
+                trades.add(reader.line() + " " + trade);
+            }
+        } catch (RuntimeException | IOException e) {
+            trades.add(e.getClass().getSimpleName());
+        }
+        return trades;
+    }
+
+    private List<String> readWithCsvMapper(byte[] csv) {
+        List<String> trades = new ArrayList<>();
+        try (MappingIterator<CanonicalTrade> it = csvMapper.readerFor(CanonicalTrade.class)
+            .with(CsvSchema.emptySchema().withHeader()).readValues(csv)) {
+            while (it.hasNext()) {
+                long line = it.getParser().currentTokenLocation().getLineNr() + 1;
+                trades.add(line + " " + it.next());
+            }
+        } catch (RuntimeException | IOException e) {
+            trades.add(e.getClass().getSimpleName());
+        }
+        return trades;
+    }
+
+    /** Returns a few bytes per read, so rows straddle buffer refills. */
+    private static final class TrickleInputStream extends FilterInputStream {
+
+        private final Random random = new Random(7);
+
+        TrickleInputStream(byte[] data) {
+            super(new ByteArrayInputStream(data));
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return super.read(b, off, Math.min(len, 1 + random.nextInt(7)));
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.instructions.util;
+
+import com.example.instructions.model.PlatformTrade;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PlatformRulesTest {
+
+    private final PlatformTrade shared = new PlatformTrade("****6789", "SEC1", "S", new BigDecimal("99.99"),
+        LocalDateTime.of(2025, 8, 4, 9, 30));
+
+    @Test
+    void apply_returnsSharedTradeUnderDefaultRules() {
+        PlatformRules rules = new PlatformRules("ACCT123", "instructions.outbound", null, Map.of("B", "B"));
+
+        assertThat(rules.apply(shared, "123456789")).isSameAs(shared);
+    }
+
+    @Test
+    void apply_masksAccountAndLabelsTypePerPlatform() {
+        PlatformRules full = new PlatformRules("RISK", "risk.trades", PlatformRules.AccountMask.FULL,
+            Map.of("S", "SELL"));
+        PlatformRules none = new PlatformRules("LEDGER", "ledger.trades", PlatformRules.AccountMask.NONE, Map.of());
+
+        assertThat(full.apply(shared, "123456789")).isEqualTo(new PlatformTrade("****", "SEC1", "SELL",
+            new BigDecimal("99.99"), LocalDateTime.of(2025, 8, 4, 9, 30)));
+        assertThat(none.apply(shared, "123456789").getAccount()).isEqualTo("123456789");
+        assertThat(none.apply(shared, "123456789").getType()).isEqualTo("S");
+    }
+
+    @Test
+    void constructor_rejectsUnknownTypeCodeAndMissingTopic() {
+        assertThatThrownBy(() -> new PlatformRules("RISK", "risk.trades", null, Map.of("BUY", "B")))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("BUY");
+        assertThatThrownBy(() -> PlatformRules.defaults("RISK", " "))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.instructions.util;
+
+import com.example.instructions.model.CanonicalTrade;
+import com.example.instructions.model.PlatformTrade;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TradeTransformerTest {
+
+    private static final String ALPHABET = "ABCSUYLEabcsuyle0129 \t-_.ſıßİéΣ";
+    private static final String[] TRADE_TYPES = {
+        "B", "S", "BUY", "SELL", "buy", "Sell", " b ", "\tSELL\n", "ſell", "ſ", "BUYS", "", " ", "HOLD", null
+    };
+
+    private final TradeTransformer transformer = new TradeTransformer(64);
+
+    @Test
+    void transformToPlatformTrade_matchesRegexBasedImplementation() {
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            CanonicalTrade trade = new CanonicalTrade(
+                random.nextInt(10) == 0 ? randomString(random, 6) : randomAccount(random),
+                random.nextInt(4) == 0 ? randomString(random, 6) : "SEC" + random.nextInt(200),
+                random.nextBoolean() ? TRADE_TYPES[random.nextInt(TRADE_TYPES.length)] : randomString(random, 5),
+                1L, BigDecimal.ONE, new BigDecimal(random.nextInt(100_000)).movePointLeft(2),
+                LocalDateTime.of(2025, 8, 4, 9, 30));
+
+            PlatformTrade expected;
+            try {
+                expected = RegexTradeTransformer.transform(trade);
+            } catch (IllegalArgumentException e) {
+                assertThatThrownBy(() -> transformer.transformToPlatformTrade(trade))
+                    .isInstanceOf(IllegalArgumentException.class).hasMessage(e.getMessage());
+                continue;
+            }
+            assertThat(transformer.transformToPlatformTrade(trade)).as("input %s", trade).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void transformToPlatformTrade_returnsCanonicalSecurityIdAsIs() {
+        String securityId = "AAPL";
+        PlatformTrade trade = transformer.transformToPlatformTrade(new CanonicalTrade("1234567890", securityId, "B",
+            1L, BigDecimal.ONE, BigDecimal.ONE, LocalDateTime.of(2025, 8, 4, 9, 30)));
+
+        assertThat(trade.getSecurity()).isSameAs(securityId);
+        assertThat(trade.getAccount()).isEqualTo("****7890");
+    }
+
+    private static String randomAccount(Random random) {
+        return Long.toString(random.nextLong(1_000_000_000L, 10_000_000_000L));
+    }
+
+    private static String randomString(Random random, int maxLength) {
+        int length = random.nextInt(maxLength + 1);
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * The previous implementation, kept as the reference for the differential test.
+     */
+    private static final class RegexTradeTransformer {
+
+        private static final Pattern SECURITY_ID_PATTERN = Pattern.compile("^[A-Z0-9]{3,}$");
+
+        static PlatformTrade transform(CanonicalTrade trade) {
+            String accountNumber = trade.getAccountNumber();
+            String maskedAccount = accountNumber == null || accountNumber.length() <= 4
+                ? "****" : "****" + accountNumber.substring(accountNumber.length() - 4);
+
+            String securityId = trade.getSecurityId();
+            if (securityId == null || securityId.isBlank()) {
+                throw new IllegalArgumentException("Security ID cannot be empty.");
+            }
+            String upperCaseId = securityId.toUpperCase();
+            SECURITY_ID_PATTERN.matcher(upperCaseId).matches();
+
+            String tradeType = "U";
+            if (trade.getTradeType() != null) {
+                tradeType = switch (trade.getTradeType().toUpperCase().trim()) {
+                    case "BUY", "B" -> "B";
+                    case "SELL", "S" -> "S";
+                    default -> "U";
+                };
+            }
+            return new PlatformTrade(maskedAccount, upperCaseId, tradeType, trade.getAmount(), trade.getTimestamp());
+        }
+    }
+}